@@ -0,0 +1,231 @@
+import java.util.*;
+
+/**
+ * Approximate top-k / bottom-k centers by average separation, for when exact all-sources closeness is too slow
+ * Each source's average separation is estimated from bfs out of a seeded random sample of pivots (Eppstein-Wang:
+ * in an undirected graph the mean distance to the pivots is an unbiased estimate of the mean distance to everyone),
+ * with a confidence interval of z standard errors from the sample's own spread (with the finite population
+ * correction, so the interval closes up as the sample approaches every source)
+ * Every source whose interval overlaps the k best intervals is then checked exactly with ClosenessEngine, and the
+ * final k come from those exact values; so the answer is the exact one unless a true top-k source's estimate
+ * missed its interval, and the result reports how much verification reordered the estimated ranking
+ * Sources should be one connected component (as BaconGame passes), since estimates only see what the pivots reach
+ * Not thread safe; give each thread its own instance
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class ApproximateCloseness<V,E> {
+	private final CsrGraph<V,E> graph;
+	private final ClosenessEngine<V,E> exact;	// verifies the candidates
+	private final BfsEngine<V,E> engine;		// pivot searches
+	private final long[] sums;				// id -> sum of distances to the pivots that reached it
+	private final long[] squares;			// id -> sum of squared distances, for the spread
+	private final int[] counts;				// id -> how many pivots reached it
+	private final int[] touched;				// ids with nonzero counts, to clear after a ranking
+
+	public ApproximateCloseness(CsrGraph<V,E> graph, ClosenessEngine<V,E> exact) {
+		this.graph = graph;
+		this.exact = exact;
+		this.engine = new BfsEngine<V,E>(graph);
+		engine.directionOptimizing(BfsEngine.DEFAULT_ALPHA, BfsEngine.DEFAULT_BETA); // only distances are used
+		this.sums = new long[graph.numVertices()];
+		this.squares = new long[graph.numVertices()];
+		this.counts = new int[graph.numVertices()];
+		this.touched = new int[graph.numVertices()];
+	}
+
+	/**
+	 * Pivots that guarantee every estimate is within epsilon with probability 1 - delta whatever the distances look like
+	 * (Hoeffding plus a union bound over the sources), for distances no bigger than diameter; a conservative way to
+	 * pick a sample size from an error target
+	 * @param epsilon error bound on an average separation
+	 * @param diameter upper bound on distances (e.g. ComponentIndex.diameterUpperBound)
+	 * @param sources number of sources being ranked
+	 * @param delta chance of any estimate missing the bound
+	 */
+	public static int pivotsFor(double epsilon, int diameter, int sources, double delta) {
+		double pivots = (double) diameter * diameter * Math.log(2.0 * sources / delta) / (2 * epsilon * epsilon);
+		return (int) Math.min(sources, Math.ceil(pivots));
+	}
+
+	/**
+	 * The k sources with the least average separation, best first
+	 * @param sources ids of the vertices to rank
+	 * @param k how many to return
+	 * @param pivots how many sources to bfs from for the estimates
+	 * @param seed seed for choosing the pivots
+	 * @param z width of each estimate's confidence interval, in standard errors (e.g. 3)
+	 */
+	public Result<V> top(int[] sources, int k, int pivots, long seed, double z) {
+		return rank(sources, k, pivots, seed, z, false);
+	}
+
+	/**
+	 * The k sources with the greatest average separation, worst first
+	 */
+	public Result<V> bottom(int[] sources, int k, int pivots, long seed, double z) {
+		return rank(sources, k, pivots, seed, z, true);
+	}
+
+	private Result<V> rank(int[] sources, int k, int pivots, long seed, double z, boolean worstFirst) {
+		int m = sources.length;
+		k = Math.min(k, m);
+		pivots = Math.max(1, Math.min(pivots, m));
+		if (k <= 0) return new Result<V>(new ArrayList<V>(), new ArrayList<V>(), 0, 0, 0, 0, 0, 0);
+
+		//estimates from a seeded sample of pivots (a partial shuffle of the sources)
+		int[] pool = sources.clone();
+		Random random = new Random(seed);
+		int numTouched = 0;
+		for (int p = 0; p < pivots; p++) {
+			int j = p + random.nextInt(m - p);
+			int pivot = pool[j];
+			pool[j] = pool[p];
+			pool[p] = pivot;
+			ShortestPathTree<V,E> tree = engine.bfs(pivot);
+			for (int i = 0; i < tree.numVertices(); i++) {
+				int v = tree.reachedId(i);
+				if (counts[v]++ == 0) touched[numTouched++] = v;
+				int d = tree.distance(v);
+				sums[v] += d;
+				squares[v] += (long) d * d;
+			}
+		}
+		double[] estimate = new double[m], margin = new double[m];
+		double correction = m > 1 ? Math.sqrt((double) (m - pivots) / (m - 1)) : 0; // sampling without replacement
+		for (int i = 0; i < m; i++) {
+			int v = sources[i], c = counts[v];
+			if (c == 0) { // no pivot reached it, so nothing is known; always a candidate
+				estimate[i] = worstFirst ? Double.POSITIVE_INFINITY : 0;
+				margin[i] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			estimate[i] = (double) sums[v] / c;
+			double variance = c > 1 ? Math.max(0, (squares[v] - c * estimate[i] * estimate[i]) / (c - 1)) : 0;
+			margin[i] = z * Math.sqrt(variance / c) * correction;
+		}
+		for (int i = 0; i < numTouched; i++) { // leave the accumulators clean for the next call
+			sums[touched[i]] = 0;
+			squares[touched[i]] = 0;
+			counts[touched[i]] = 0;
+		}
+
+		//estimated ranking, best first, ties to the smaller id like ClosenessEngine
+		Integer[] order = new Integer[m];
+		for (int i = 0; i < m; i++) order[i] = i;
+		Comparator<Integer> byEstimate = (a, b) -> {
+			int c = worstFirst ? Double.compare(estimate[b], estimate[a]) : Double.compare(estimate[a], estimate[b]);
+			return c != 0 ? c : Integer.compare(sources[a], sources[b]);
+		};
+		Arrays.sort(order, byEstimate);
+		Map<Integer, Integer> estimatedRank = new HashMap<Integer, Integer>(); // id -> position in the estimated ranking
+		List<V> estimated = new ArrayList<V>();
+		for (int i = 0; i < m; i++) {
+			estimatedRank.put(sources[order[i]], i);
+			if (i < k) estimated.add(graph.vertex(sources[order[i]]));
+		}
+
+		//the k-th best pessimistic end of an interval; any source whose optimistic end beats it could still be in the k
+		double[] pessimistic = new double[m];
+		for (int i = 0; i < m; i++) pessimistic[i] = worstFirst ? estimate[i] - margin[i] : estimate[i] + margin[i];
+		double[] sortedPessimistic = pessimistic.clone();
+		Arrays.sort(sortedPessimistic);
+		double threshold = worstFirst ? sortedPessimistic[m - k] : sortedPessimistic[k - 1];
+		int[] candidateIds = new int[m];
+		int candidates = 0;
+		double bound = 0;
+		for (int i = 0; i < m; i++) {
+			int at = order[i];
+			double optimistic = worstFirst ? estimate[at] + margin[at] : estimate[at] - margin[at];
+			if (i < k || (worstFirst ? optimistic >= threshold : optimistic <= threshold)) {
+				candidateIds[candidates++] = sources[at];
+				bound = Math.max(bound, margin[at]);
+			}
+		}
+		candidateIds = Arrays.copyOf(candidateIds, candidates);
+		List<V> ranked = worstFirst ? exact.bottom(candidateIds, k) : exact.top(candidateIds, k);
+
+		//how much checking moved things
+		int[] finalIds = new int[ranked.size()];
+		for (int i = 0; i < finalIds.length; i++) finalIds[i] = graph.indexOf(ranked.get(i));
+		double[] exactAverages = exact.averages(finalIds);
+		Set<V> estimatedSet = new HashSet<V>(estimated);
+		int changed = 0, maxShift = 0;
+		double maxError = 0;
+		for (int i = 0; i < finalIds.length; i++) {
+			if (!estimatedSet.contains(ranked.get(i))) changed++;
+			int shift = Math.abs(estimatedRank.get(finalIds[i]) - i);
+			maxShift = Math.max(maxShift, shift);
+			int at = order[estimatedRank.get(finalIds[i])];
+			maxError = Math.max(maxError, Math.abs(estimate[at] - exactAverages[i]));
+		}
+		return new Result<V>(ranked, estimated, pivots, bound, candidates, changed, maxShift, maxError);
+	}
+
+	/**
+	 * An approximate ranking, and what verifying it found
+	 */
+	public static class Result<V> {
+		private final List<V> ranked, estimated;
+		private final int pivots, candidates, changed, maxShift;
+		private final double bound, maxError;
+
+		Result(List<V> ranked, List<V> estimated, int pivots, double bound, int candidates, int changed, int maxShift, double maxError) {
+			this.ranked = ranked;
+			this.estimated = estimated;
+			this.pivots = pivots;
+			this.bound = bound;
+			this.candidates = candidates;
+			this.changed = changed;
+			this.maxShift = maxShift;
+			this.maxError = maxError;
+		}
+
+		/** The verified k, in order */
+		public List<V> ranked() {
+			return ranked;
+		}
+
+		/** The k the estimates alone picked, in estimated order */
+		public List<V> estimated() {
+			return estimated;
+		}
+
+		/** Pivots the estimates came from */
+		public int pivots() {
+			return pivots;
+		}
+
+		/** Widest confidence interval half-width among the candidates */
+		public double errorBound() {
+			return bound;
+		}
+
+		/** How many sources were checked exactly */
+		public int candidates() {
+			return candidates;
+		}
+
+		/** How many of the verified k the estimates alone would have left out */
+		public int changed() {
+			return changed;
+		}
+
+		/** Largest distance any of the verified k moved from its estimated rank */
+		public int maxShift() {
+			return maxShift;
+		}
+
+		/** Largest difference between the estimate and the exact average among the verified k */
+		public double maxError() {
+			return maxError;
+		}
+
+		public String toString() {
+			return pivots + " pivots, error bound " + String.format("%.3f", bound) + ", " + candidates + " candidates checked exactly, "
+					+ changed + " of " + ranked.size() + " replaced by checking, largest rank shift " + maxShift
+					+ ", largest estimate error " + String.format("%.3f", maxError);
+		}
+	}
+}
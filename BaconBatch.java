@@ -0,0 +1,230 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * non-interactive kevin bacon game: answers a file (or stdin stream) of queries in one process, writing each answer
+ * in the same words play() would, in input order
+ *
+ * one query per line, fields separated by pipes like the bacon data files:
+ *   u|name          make name the center for the queries after it
+ *   p|name          path from name to the center
+ *   b|name|name     path between two actors
+ *   s|low|high      actors by separation from the center
+ *   d|low|high      actors by degree
+ *   c|#             top (positive) or bottom (negative) # centers
+ *   i               actors with infinite separation from the center
+ * blank lines and lines starting with # are skipped
+ *
+ * queries are taken in windows: each window's centers get their path trees built once, in parallel, then its queries
+ * are answered in parallel grouped by center, while the next window is read and the previous one written
+ *
+ * usage: BaconBatch <center> <queries|-> (<snapshot> | <movies> <actors> <movie-actors>) [threads]
+ */
+public class BaconBatch {
+    private static final int WINDOW = 4096; //queries read, answered and written together
+    private static final int CHUNK = 64; //queries per task
+    private static final Metrics.Counter QUERIES = Metrics.counter("batch.queries");
+    private static final Metrics.Histogram WINDOW_TIME = Metrics.timer("batch.window"); //answering one window, trees included
+
+    private final BaconGame game;
+    private final ExecutorService workers; //answers queries and builds trees
+    private final ExecutorService coordinator; //answers one window while the caller reads the next one
+    private final ThreadLocal<BidirectionalBfs<String, Set<String>>> pairSearches; //b queries, one search per thread
+    private final Map<String, String> ranked = new ConcurrentHashMap<>(); //c answers by component and count; they don't depend on the exact center
+
+    /**
+     * @param game loaded game to answer from (its current center isn't used or changed)
+     * @param threads how many queries to answer at once
+     */
+    public BaconBatch(BaconGame game, int threads) {
+        this.game = game;
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.coordinator = Executors.newSingleThreadExecutor();
+        this.pairSearches = ThreadLocal.withInitial(() -> new BidirectionalBfs<>(game.graph()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length > 6) {
+            System.out.println("usage: BaconBatch <center> <queries|-> (<snapshot> | <movies> <actors> <movie-actors>) [threads]");
+            return;
+        }
+        Metrics.export(); //jmx, and a periodic dump if -Dbacon.metrics.dump is set
+        int threads = Runtime.getRuntime().availableProcessors();
+        int files = args.length - 2;
+        if (files == 2 || files == 4) { //trailing thread count
+            threads = Integer.parseInt(args[args.length - 1]);
+            files--;
+        }
+        BaconGame game = files == 1 ? new BaconGame(args[2], args[0]) : new BaconGame(args[2], args[3], args[4], args[0]);
+        if (game.graph() == null) return; //the game already said why it couldn't load
+
+        Reader source = args[1].equals("-") ? new InputStreamReader(System.in) : new FileReader(args[1]);
+        BaconBatch batch = new BaconBatch(game, threads);
+        try (BufferedReader in = new BufferedReader(source, 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16)) {
+            batch.run(in, out, args[0]);
+        } finally {
+            batch.shutdown();
+        }
+    }
+
+    /**
+     * a parsed query line, and the center in effect when it was read
+     */
+    private static class Query {
+        final String[] fields;
+        final String center;
+
+        Query(String[] fields, String center) {
+            this.fields = fields;
+            this.center = center;
+        }
+    }
+
+    /**
+     * answers every query in in, writing one answer per query to out in input order
+     * @param in query lines
+     * @param out where answers go
+     * @param center center of the universe before the first u query
+     * @return number of queries answered
+     * @throws IOException if error while reading or writing
+     */
+    public long run(BufferedReader in, Writer out, String center) throws IOException {
+        long answered = 0;
+        Future<String[]> pending = null; //window being answered
+        while (true) {
+            List<Query> window = new ArrayList<>();
+            String line;
+            while (window.size() < WINDOW && (line = in.readLine()) != null) { //read while the last window is answered
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\\|", -1);
+                fields[0] = fields[0].trim();
+                if (fields[0].equals("u") && fields.length == 2 && game.graph().hasVertex(fields[1])) {
+                    center = fields[1]; //this query announces the new center, and later ones use it
+                }
+                window.add(new Query(fields, center));
+            }
+            if (pending != null) {
+                answered += write(out, get(pending));
+            }
+            if (window.isEmpty()) break;
+            pending = coordinator.submit(() -> answer(window));
+        }
+        out.flush();
+        return answered;
+    }
+
+    /** stops the batch's threads */
+    public void shutdown() {
+        workers.shutdown();
+        coordinator.shutdown();
+    }
+
+    /**
+     * answers a window of queries: path trees first, then the queries, grouped by center so each task mostly uses one tree
+     */
+    private String[] answer(List<Query> window) throws Exception {
+        long started = System.nanoTime();
+        Map<String, Future<ShortestPathTree<String, Set<String>>>> building = new LinkedHashMap<>();
+        for (Query q : window) {
+            if (needsTree(q) && !building.containsKey(q.center)) {
+                building.put(q.center, workers.submit(() -> game.pathTree(q.center)));
+            }
+        }
+        Map<String, ShortestPathTree<String, Set<String>>> trees = new HashMap<>(); //held here, so cache evictions can't drop one mid-window
+        for (Map.Entry<String, Future<ShortestPathTree<String, Set<String>>>> e : building.entrySet()) {
+            trees.put(e.getKey(), e.getValue().get());
+        }
+
+        Integer[] order = new Integer[window.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Map<String, Integer> rank = new HashMap<>(); //centers in first-seen order
+        for (Query q : window) rank.putIfAbsent(q.center, rank.size());
+        Arrays.sort(order, Comparator.comparingInt(i -> rank.get(window.get(i).center))); //stable, so input order within a center
+
+        String[] answers = new String[window.size()];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < order.length; from += CHUNK) {
+            int start = from, end = Math.min(from + CHUNK, order.length);
+            tasks.add(() -> {
+                for (int i = start; i < end; i++) {
+                    Query q = window.get(order[i]);
+                    answers[order[i]] = answer(q, trees.get(q.center));
+                }
+                return null;
+            });
+        }
+        for (Future<Void> f : workers.invokeAll(tasks)) f.get(); //rethrows anything a task threw
+        QUERIES.add(window.size());
+        WINDOW_TIME.recordSince(started);
+        return answers;
+    }
+
+    /** whether answering q needs its center's path tree */
+    private static boolean needsTree(Query q) {
+        String command = q.fields[0];
+        return command.equals("p") || command.equals("s") || command.equals("i") || command.equals("c") || command.equals("u");
+    }
+
+    /**
+     * answers one query, in the words play() prints
+     */
+    private String answer(Query q, ShortestPathTree<String, Set<String>> tree) {
+        String[] f = q.fields;
+        try {
+            switch (f[0]) {
+                case "u":
+                    if (f.length != 2) break;
+                    return game.graph().hasVertex(f[1]) ? game.centerLine(tree) : f[1] + " does not exist.";
+                case "p":
+                    if (f.length != 2) break;
+                    return game.numberOf(tree, f[1]);
+                case "b":
+                    if (f.length != 3) break;
+                    return game.findPath(pairSearches.get(), f[1], f[2]);
+                case "s":
+                    if (f.length != 3) break;
+                    List<String> near = game.sortActors(tree, Integer.parseInt(f[1].trim()), Integer.parseInt(f[2].trim()));
+                    return near.isEmpty() ? "No actors within specified separations" : near.toString();
+                case "d":
+                    if (f.length != 3) break;
+                    List<String> actors = game.withinDegree(Integer.parseInt(f[1].trim()), Integer.parseInt(f[2].trim()));
+                    return actors.isEmpty() ? "No actors within specified degrees" : actors.toString();
+                case "c":
+                    if (f.length != 2) break;
+                    int k = Integer.parseInt(f[1].trim());
+                    if (Math.abs(k) > game.graph().numVertices()) return "Invalid number of actors";
+                    if (k == 0) return "No centers\n[]";
+                    String key = game.componentOf(tree) + "|" + k;
+                    return ranked.computeIfAbsent(key, x -> String.valueOf(k > 0 ? game.separations(tree, "top", k) : game.separations(tree, "bottom", -k)));
+                case "i":
+                    if (f.length != 1) break;
+                    return game.infiniteSep(tree).toString();
+            }
+        } catch (NumberFormatException e) {
+            //falls through to the invalid query answer
+        }
+        return "Invalid query: " + String.join("|", f);
+    }
+
+    /** writes a window's answers, one per line */
+    private static int write(Writer out, String[] answers) throws IOException {
+        for (String a : answers) {
+            out.write(a);
+            out.write('\n');
+        }
+        return answers.length;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while answering queries");
+        } catch (ExecutionException e) {
+            throw new IOException("query failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * micro-benchmarks for building the costar graph, searching it, and the game's queries, so engine or data structure
+ * changes can be compared against the original AdjMapGraph code paths (createGraph, BaconGraph.bfs and friends)
+ * runs on the bundled bacon files plus seeded synthetic power-law costar graphs of a few sizes (BaconDatasetGenerator)
+ * for every operation it reports throughput, latency percentiles, bytes allocated per operation (from the
+ * thread's allocation counter) and time spent in gc
+ * allocation is counted on the calling thread only, so work handed to pools (buildGraph, separations) under-reports it
+ *
+ * usage: BaconBenchmark [-warmup n] [-iterations n] [-builds n] [-sizes a,b,...] [-seed s] [-only name]
+ */
+public class BaconBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static volatile long sink; //results are folded in here so the jit can't throw the work away
+
+    /**
+     * one benchmarked operation; i counts up through the calls, for ops that rotate through inputs
+     */
+    interface Op {
+        Object run(int i) throws Exception;
+    }
+
+    private int warmup = 20; //calls before measuring, per operation
+    private int iterations = 200; //measured calls for query operations
+    private int builds = 5; //measured calls for whole-graph operations (graph builds, all-sources closeness)
+    private int[] sizes = {10_000, 100_000}; //synthetic dataset sizes, in actors
+    private long seed = 42;
+    private String only; //run just the operations whose name contains this
+
+    public static void main(String[] args) throws Exception {
+        BaconBenchmark bench = new BaconBenchmark();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-warmup": bench.warmup = Integer.parseInt(args[i + 1]); break;
+                case "-iterations": bench.iterations = Integer.parseInt(args[i + 1]); break;
+                case "-builds": bench.builds = Integer.parseInt(args[i + 1]); break;
+                case "-seed": bench.seed = Long.parseLong(args[i + 1]); break;
+                case "-only": bench.only = args[i + 1]; break;
+                case "-sizes":
+                    String[] s = args[i + 1].split(",");
+                    bench.sizes = new int[s.length];
+                    for (int j = 0; j < s.length; j++) bench.sizes[j] = Integer.parseInt(s[j].trim());
+                    break;
+                default:
+                    System.out.println("usage: BaconBenchmark [-warmup n] [-iterations n] [-builds n] [-sizes a,b,...] [-seed s] [-only name]");
+                    return;
+            }
+        }
+        if (bench.iterations < 1 || bench.builds < 1 || bench.warmup < 0) { //each row needs a measured call for its percentiles and per-call allocation
+            System.out.println("-iterations and -builds must be at least 1, and -warmup at least 0");
+            return;
+        }
+        System.out.println(String.format("%-16s %-24s %12s %10s %10s %10s %10s %14s %8s",
+                "dataset", "operation", "ops/s", "p50 us", "p90 us", "p99 us", "max us", "alloc B/op", "gc ms"));
+        bench.run("bacon", "bacon/movies.txt", "bacon/actors.txt", "bacon/movie-actors.txt");
+        File dir = Files.createTempDirectory("bacon-bench").toFile();
+        for (int size : bench.sizes) {
+            BaconDatasetGenerator.ofSize(size, bench.seed).write(dir); //same files for the same size and seed, run to run
+            File movies = BaconDatasetGenerator.movies(dir), actors = BaconDatasetGenerator.actors(dir), movieActors = BaconDatasetGenerator.movieActors(dir);
+            bench.run("synthetic-" + size, movies.getPath(), actors.getPath(), movieActors.getPath());
+            movies.delete();
+            actors.delete();
+            movieActors.delete();
+        }
+        dir.delete();
+    }
+
+    /**
+     * benchmarks every operation on one dataset
+     */
+    private void run(String dataset, String movies, String actors, String movieActors) throws Exception {
+        //baseline graph and tree from the original code paths, and the compact versions the game now uses
+        AdjMapGraph<String, Set<String>> adj = BaconGraphBuilder.createGraph(movies, actors, movieActors);
+        DegreeIndex<String> adjDegrees = BaconGraphBuilder.loadGraph(movies, actors, movieActors).degreeIndex(); //kept up to date while loading
+        CsrGraph<String, Set<String>> csr = BaconGraphBuilder.buildGraph(movies, actors, movieActors, Runtime.getRuntime().availableProcessors(), null);
+        DegreeIndex<String> degrees = DegreeIndex.of(csr);
+        String center = degrees.range(degrees.maxDegree(), degrees.maxDegree()).get(0); //best connected actor
+        Graph<String, Set<String>> adjTree = BaconGraph.bfs(adj, center);
+        ShortestPathTree<String, Set<String>> tree = new BfsEngine<>(csr).bfs(center).copy();
+        BfsEngine<String, Set<String>> engine = new BfsEngine<>(csr);
+
+        //the same seeded sample of reachable actors for every query op
+        Random random = new Random(seed);
+        String[] sample = new String[256];
+        for (int i = 0; i < sample.length; i++) sample[i] = tree.vertices().get(random.nextInt(tree.numVertices()));
+
+        PrintStream out = System.out;
+        BaconGame game;
+        System.setOut(new PrintStream(new ByteArrayOutputStream())); //the game announces its center; keep the table clean
+        try {
+            game = new BaconGame(movies, actors, movieActors, center);
+        } finally {
+            System.setOut(out);
+        }
+        int maxDegree = degrees.maxDegree();
+
+        measure(dataset, "createGraph", builds, i -> BaconGraphBuilder.createGraph(movies, actors, movieActors));
+        measure(dataset, "loadGraph", builds, i -> BaconGraphBuilder.loadGraph(movies, actors, movieActors));
+        measure(dataset, "buildGraph", builds, i -> BaconGraphBuilder.buildGraph(movies, actors, movieActors, Runtime.getRuntime().availableProcessors(), null));
+        measure(dataset, "bfs (adjmap)", builds, i -> BaconGraph.bfs(adj, sample[i % sample.length]));
+        measure(dataset, "bfs (engine)", iterations, i -> engine.bfs(sample[i % sample.length]).numVertices());
+        measure(dataset, "getPath (adjmap)", iterations, i -> BaconGraph.getPath(adjTree, sample[i % sample.length]));
+        measure(dataset, "getPath (tree)", iterations, i -> BaconGraph.getPath(tree, sample[i % sample.length]));
+        measure(dataset, "missingVertices (adjmap)", builds, i -> BaconGraph.missingVertices(adj, adjTree));
+        measure(dataset, "missingVertices (tree)", iterations, i -> BaconGraph.missingVertices(csr, tree));
+        measure(dataset, "separations top 10", builds, i -> game.separations("top", 10));
+        measure(dataset, "withinDegree", iterations, i -> game.withinDegree(i % (maxDegree + 1), maxDegree));
+        measure(dataset, "withinDegree (adjmap index)", iterations, i -> adjDegrees.range(i % (maxDegree + 1), maxDegree));
+        measure(dataset, "sortActors", iterations, i -> game.sortActors(i % 4, 4 + i % 4));
+    }
+
+    /**
+     * times calls of op after a warmup, and prints a row of the report
+     */
+    private void measure(String dataset, String name, int calls, Op op) throws Exception {
+        if (only != null && !name.contains(only)) return;
+        for (int i = 0; i < Math.min(warmup, Math.max(calls, 1)); i++) consume(op.run(i));
+
+        long[] nanos = new long[calls];
+        long thread = Thread.currentThread().getId();
+        long gcBefore = gcMillis();
+        long allocBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            long t = System.nanoTime();
+            consume(op.run(i));
+            nanos[i] = System.nanoTime() - t;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocBefore;
+        long gc = gcMillis() - gcBefore;
+
+        Arrays.sort(nanos);
+        String row = String.format("%-16s %-24s %12.1f %10.1f %10.1f %10.1f %10.1f %14d %8d",
+                dataset, name, calls / (elapsed / 1e9),
+                percentile(nanos, 50) / 1e3, percentile(nanos, 90) / 1e3, percentile(nanos, 99) / 1e3,
+                nanos[calls - 1] / 1e3, allocated / calls, gc);
+        System.out.println(row);
+    }
+
+    /** the p-th percentile of sorted latencies (nearest rank) */
+    private static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /** total time all collectors have spent so far */
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static void consume(Object result) {
+        sink += System.identityHashCode(result);
+    }
+}
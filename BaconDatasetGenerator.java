@@ -0,0 +1,193 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * writes seeded synthetic costar datasets in the pipe-delimited formats BaconGraphBuilder reads
+ * (movies.txt "id|title", actors.txt "id|name", movie-actors.txt "movie id|actor id"), for load testing at sizes
+ * the bundled bacon files don't reach
+ *
+ * actors are split into the requested number of components (one giant, the rest sharing what's left), and each
+ * component only casts its own actors, so components never join
+ * cast sizes follow a discrete pareto distribution, and every cast mixes actors new to the component with veterans
+ * picked in proportion to how many movies they've been in, giving a heavy-tailed degree distribution and a component
+ * that is connected once every actor has been introduced; actors the component runs out of movies for are left as
+ * lone vertices, like the real data has
+ * the same settings and seed always give byte-identical files
+ *
+ * usage: BaconDatasetGenerator <dir> [-seed s] [-actors n] [-movies n] [-alpha a] [-minCast n] [-maxCast n]
+ *        [-components k] [-giant fraction]
+ */
+public class BaconDatasetGenerator {
+    private final long seed;
+    private final int numActors, numMovies;
+    private final double alpha; //pareto tail exponent of cast sizes; smaller means more huge casts
+    private final int minCast, maxCast;
+    private final int components; //components with movies (lone uncast actors come on top of these)
+    private final double giant; //fraction of actors in the largest component
+
+    /**
+     * @param seed random seed
+     * @param numActors number of actors
+     * @param numMovies number of movies
+     * @param alpha pareto exponent of the cast size distribution (e.g. 2)
+     * @param minCast smallest cast
+     * @param maxCast largest cast
+     * @param components number of disconnected groups of actors
+     * @param giant fraction of the actors in the largest group
+     */
+    public BaconDatasetGenerator(long seed, int numActors, int numMovies, double alpha, int minCast, int maxCast, int components, double giant) {
+        if (numActors < 1 || numMovies < 1) throw new IllegalArgumentException("need at least one actor and one movie");
+        if (minCast < 1 || maxCast < minCast) throw new IllegalArgumentException("bad cast size range [" + minCast + ", " + maxCast + "]");
+        if (components < 1 || components > Math.min(numActors, numMovies)) throw new IllegalArgumentException("bad number of components " + components);
+        if (alpha <= 0 || giant <= 0 || giant > 1) throw new IllegalArgumentException("alpha must be positive and giant in (0, 1]");
+        this.seed = seed;
+        this.numActors = numActors;
+        this.numMovies = numMovies;
+        this.alpha = alpha;
+        this.minCast = minCast;
+        this.maxCast = maxCast;
+        this.components = components;
+        this.giant = giant;
+    }
+
+    /**
+     * generator with the usual shape: half as many movies as actors, pareto(2) casts of 3 to 200, 90% of actors in
+     * the giant component and one small component per 25 actors
+     */
+    public static BaconDatasetGenerator ofSize(int numActors, long seed) {
+        int movies = Math.max(1, numActors / 2);
+        return new BaconDatasetGenerator(seed, numActors, movies, 2.0, 3, 200, Math.max(1, Math.min(movies, numActors / 25)), 0.9);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length % 2 == 0) {
+            System.out.println("usage: BaconDatasetGenerator <dir> [-seed s] [-actors n] [-movies n] [-alpha a] [-minCast n] [-maxCast n] [-components k] [-giant fraction]");
+            return;
+        }
+        long seed = 42;
+        int actors = 100_000, movies = -1, minCast = 3, maxCast = 200, components = -1;
+        double alpha = 2.0, giant = 0.9;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-seed": seed = Long.parseLong(value); break;
+                case "-actors": actors = Integer.parseInt(value); break;
+                case "-movies": movies = Integer.parseInt(value); break;
+                case "-alpha": alpha = Double.parseDouble(value); break;
+                case "-minCast": minCast = Integer.parseInt(value); break;
+                case "-maxCast": maxCast = Integer.parseInt(value); break;
+                case "-components": components = Integer.parseInt(value); break;
+                case "-giant": giant = Double.parseDouble(value); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (movies < 0) movies = Math.max(1, actors / 2);
+        if (components < 0) components = Math.max(1, Math.min(movies, actors / 25));
+        long start = System.nanoTime();
+        long castings = new BaconDatasetGenerator(seed, actors, movies, alpha, minCast, maxCast, components, giant).write(new File(args[0]));
+        System.out.println("wrote " + actors + " actors, " + movies + " movies and " + castings + " castings to " + args[0]
+                + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /** the movies file in dir */
+    public static File movies(File dir) {
+        return new File(dir, "movies.txt");
+    }
+
+    /** the actors file in dir */
+    public static File actors(File dir) {
+        return new File(dir, "actors.txt");
+    }
+
+    /** the movie-actors file in dir */
+    public static File movieActors(File dir) {
+        return new File(dir, "movie-actors.txt");
+    }
+
+    /**
+     * writes movies.txt, actors.txt and movie-actors.txt into dir (created if needed)
+     * @param dir directory to write into
+     * @return number of movie-actor lines written
+     * @throws IOException if error while writing
+     */
+    public long write(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("can't create " + dir);
+        Random random = new Random(seed);
+
+        //component c owns actors [actorStart[c], actorStart[c+1]) and movies [movieStart[c], movieStart[c+1]) (0-based)
+        int[] actorStart = split(numActors, components, giant);
+        int[] movieStart = new int[components + 1];
+        for (int c = 0; c < components; c++) { //movies in proportion to actors, at least one each
+            int remaining = numMovies - movieStart[c] - (components - c - 1);
+            long share = (long) numMovies * (actorStart[c + 1] - actorStart[c]) / numActors;
+            movieStart[c + 1] = movieStart[c] + (int) Math.max(1, Math.min(remaining, share));
+        }
+        movieStart[components] = numMovies; //rounding leftovers go to the last component
+
+        try (Writer actors = writer(actors(dir))) {
+            for (int a = 1; a <= numActors; a++) actors.write(a + "|Actor " + a + "\n");
+        }
+        try (Writer movies = writer(movies(dir))) {
+            for (int m = 1; m <= numMovies; m++) movies.write(m + "|Movie " + m + " (" + (1900 + random.nextInt(125)) + ")\n");
+        }
+
+        long castings = 0;
+        int[] lastCast = new int[numActors]; //movie (1-based) an actor was last cast in, to keep casts distinct
+        int[] cast = new int[maxCast];
+        try (Writer movieActors = writer(movieActors(dir))) {
+            for (int c = 0; c < components; c++) {
+                int first = actorStart[c], size = actorStart[c + 1] - first;
+                int introduced = 0; //actors first..first+introduced-1 have been cast
+                int[] appearances = new int[Math.max(16, size)]; //one entry per casting, so sampling it favors busy actors
+                int used = 0;
+                for (int m = movieStart[c]; m < movieStart[c + 1]; m++) {
+                    int movie = m + 1;
+                    int want = Math.min(castSize(random), size);
+                    int moviesLeft = movieStart[c + 1] - m;
+                    int veteransMin = introduced > 0 ? 1 : 0; //someone already cast, so the component stays connected
+                    int newcomers = Math.min(want - veteransMin, (size - introduced + moviesLeft - 1) / moviesLeft); //spread introductions over the movies
+                    newcomers = Math.max(newcomers, 0);
+                    int n = 0;
+                    for (int i = 0; i < newcomers; i++) {
+                        cast[n] = first + introduced++;
+                        lastCast[cast[n++]] = movie;
+                    }
+                    for (int tries = 0; n < want && used > 0 && tries < 4 * want; tries++) { //preferential picks, skipping repeats
+                        int actor = appearances[random.nextInt(used)];
+                        if (lastCast[actor] == movie) continue;
+                        lastCast[actor] = movie;
+                        cast[n++] = actor;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        if (used == appearances.length) appearances = Arrays.copyOf(appearances, 2 * used);
+                        appearances[used++] = cast[i];
+                        movieActors.write(movie + "|" + (cast[i] + 1) + "\n");
+                    }
+                    castings += n;
+                }
+            }
+        }
+        return castings;
+    }
+
+    /** a cast size from a discrete pareto distribution over [minCast, maxCast] */
+    private int castSize(Random random) {
+        double x = minCast * Math.pow(1 - random.nextDouble(), -1 / alpha);
+        return (int) Math.min(maxCast, Math.floor(x));
+    }
+
+    /** boundaries of k groups over n items, the first holding about fraction of them and the rest sharing evenly */
+    private static int[] split(int n, int k, double fraction) {
+        int[] start = new int[k + 1];
+        int big = k == 1 ? n : Math.max(1, Math.min(n - (k - 1), (int) (n * fraction)));
+        start[1] = big;
+        for (int c = 1; c < k; c++) {
+            start[c + 1] = big + (int) ((long) (n - big) * c / (k - 1));
+        }
+        return start;
+    }
+
+    private static Writer writer(File file) throws IOException {
+        return new BufferedWriter(new FileWriter(file), 1 << 16);
+    }
+}
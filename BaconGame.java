@@ -1,5 +1,7 @@
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * interactive interface for playing the kevin bacon game
@@ -9,29 +11,121 @@ import java.util.*;
  */
 public class BaconGame {
     private Scanner in = new Scanner(System.in); //scanner for keyboard input
-    private Graph<String, Set<String>> baconGraph;
-    private static Graph<String, Set<String>> treePath;
-    private static String center;
+    private CsrGraph<String, Set<String>> baconGraph;
+    private static final long TREE_CACHE_BYTES = 64L << 20; //memory budget for cached path trees
+    private static final int DIRECTION_OPTIMIZING_MIN_VERTICES = 100_000; //graphs big enough for bottom-up bfs levels to pay off
+    private PathTreeCache<String, Set<String>> treeCache; //recent centers' path trees, so switching back skips the bfs
+    private ClosenessEngine<String, Set<String>> closeness; //parallel all-sources average separation
+    private static final int APPROX_PIVOTS = 128; //bfs runs behind each approximate ranking
+    private static final long APPROX_SEED = 10; //same pivots every time, so the same answers
+    private static final double APPROX_Z = 3; //confidence interval width in standard errors; wider checks more candidates
+    private ApproximateCloseness<String, Set<String>> approximate; //sampled average separation, verified on the close calls
+    private BidirectionalBfs<String, Set<String>> pairSearch; //point-to-point paths that leave treePath alone
+    private ShortestPathTree<String, Set<String>> treePath; //path tree of the current center, one per game
+    private String center;
+    private ComponentIndex components; //connected components of baconGraph, labeled once at load time
+    private DegreeIndex<String> degrees; //actors bucketed by degree, for withinDegree
+    private LandmarkIndex<String, Set<String>> landmarks; //distances to a few landmark actors, for separation between any two
+    private Set<String> infinite; //cached infiniteSep() result
+    private String infiniteCenter; //center the cached set was computed for
 
     public BaconGame(String movieFilePath, String actorFilePath, String movieActorFilePath, String cen){
         try {
-            baconGraph = BaconGraphBuilder.createGraph(movieFilePath, actorFilePath, movieActorFilePath); //build graph from file inputs
-            treePath = BaconGraph.bfs(baconGraph, cen); //do a bfs and create shortest path tree
-            center = cen; //set center of universe equal to whatever cen is passed in as
+            BaconGraphBuilder.BuildReport report = new BaconGraphBuilder.BuildReport();
+            CsrGraph<String, Set<String>> graph = BaconGraphBuilder.buildGraph(movieFilePath, actorFilePath, movieActorFilePath, Runtime.getRuntime().availableProcessors(), report); //build graph from file inputs on every core, straight into compact arrays
+            start(graph, report.components(), null, cen); //components came from union-find while building
         } catch (IOException e) {
             System.out.println(e);
         }
     }
 
+    /**
+     * starts the game from a binary snapshot of the graph (see GraphSnapshot) instead of the text files,
+     * along with its landmark index if one was saved next to it
+     *
+     * @param snapshotPath file written by GraphSnapshot.write
+     * @param cen the starting center of the universe
+     */
+    public BaconGame(String snapshotPath, String cen){
+        try {
+            CsrGraph<String, Set<String>> graph = GraphSnapshot.load(snapshotPath);
+            LandmarkIndex<String, Set<String>> saved = null;
+            if (new File(LandmarkIndex.pathFor(snapshotPath)).exists()){
+                saved = LandmarkIndex.load(LandmarkIndex.pathFor(snapshotPath), graph);
+            }
+            start(graph, ComponentIndex.of(graph), saved, cen);
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * sets up the engines over a loaded graph and builds the first path tree
+     *
+     * @param landmarkIndex landmark index of graph, null to build one
+     */
+    private void start(CsrGraph<String, Set<String>> graph, ComponentIndex index, LandmarkIndex<String, Set<String>> landmarkIndex, String cen){
+        baconGraph = graph;
+        components = index;
+        landmarks = landmarkIndex != null ? landmarkIndex : LandmarkIndex.spread(baconGraph, LandmarkIndex.DEFAULT_LANDMARKS);
+        if (baconGraph.numVertices() >= DIRECTION_OPTIMIZING_MIN_VERTICES){ //same distances, but ties may pick other (equally short) paths, and s lists actors of one separation in another order
+            treeCache = new PathTreeCache<>(baconGraph, TREE_CACHE_BYTES, BfsEngine.DEFAULT_ALPHA, BfsEngine.DEFAULT_BETA);
+        }
+        else {
+            treeCache = new PathTreeCache<>(baconGraph, TREE_CACHE_BYTES);
+        }
+        degrees = DegreeIndex.of(baconGraph);
+        closeness = new ClosenessEngine<>(baconGraph, components); //batches only scan their own component
+        approximate = new ApproximateCloseness<>(baconGraph, closeness);
+        pairSearch = new BidirectionalBfs<>(baconGraph);
+        treePath = whole(treeCache.get(cen)); //do a bfs and create shortest path tree
+        center = cen; //set center of universe equal to whatever cen is passed in as
+    }
+
     /**
      * Changes the center of the universe
      *
      * @param newCen the name of the actor that is the new center
      */
     public void changeCenter(String newCen){
-        treePath = BaconGraph.bfs(baconGraph, newCen); //new path tree is created by doing a bfs with newCen as the center
+        treePath = whole(treeCache.get(newCen)); //new path tree is created by doing a bfs with newCen as the center (or reused if newCen was a recent center)
         center = newCen; //center is now equal to newCen
-        System.out.println(newCen + " is now the center of the acting universe, connected to " + (treePath.numVertices() - 1) + "/" + baconGraph.numVertices() + " actors with average separation " + BaconGraph.averageSeparation(treePath, center));
+        System.out.println(centerLine(treePath));
+    }
+
+    /**
+     * the tree itself, or a whole copy of a compacted one from the cache, so s slices the current center's tree
+     * rather than walking it down from the root every time
+     */
+    private static ShortestPathTree<String, Set<String>> whole(ShortestPathTree<String, Set<String>> tree){
+        return tree instanceof CompactPathTree ? ((CompactPathTree<String, Set<String>>) tree).expand() : tree;
+    }
+
+    /**
+     * The shortest path tree for a center, from the cache or built on a miss; doesn't change the current center
+     *
+     * @param cen the name of the actor at the center
+     * @return a tree that stays valid however long it is kept
+     */
+    public ShortestPathTree<String, Set<String>> pathTree(String cen){
+        return treeCache.get(cen);
+    }
+
+    /**
+     * The graph the game is played on
+     */
+    public CsrGraph<String, Set<String>> graph(){
+        return baconGraph;
+    }
+
+    /**
+     * The announcement made when an actor becomes the center of the universe
+     *
+     * @param tree path tree of the center
+     * @return the message, with how many actors the center connects to and their average separation
+     */
+    public String centerLine(ShortestPathTree<String, Set<String>> tree){
+        return tree.root() + " is now the center of the acting universe, connected to " + connectedCount(tree) + "/" + baconGraph.numVertices() + " actors with average separation " + BaconGraph.averageSeparation(tree);
     }
 
     /**
@@ -40,17 +134,28 @@ public class BaconGame {
      * @param actor the name of the actor that acts as the start of the path
      * @return the path as a String
      */
-    public static String findPath(String actor){
-        List<String> path = BaconGraph.getPath(treePath, actor); //calls getPath on path tree and passed in actor; stores the returned list
+    public String findPath(String actor){
+        return findPath(treePath, actor);
+    }
+
+    /**
+     * Finds a path from actor to the center of a given path tree
+     *
+     * @param tree path tree of the center
+     * @param actor the name of the actor that acts as the start of the path
+     * @return the path as a String
+     */
+    public static String findPath(ShortestPathTree<String, Set<String>> tree, String actor){
+        List<String> path = BaconGraph.getPath(tree, actor); //calls getPath on path tree and passed in actor; stores the returned list
         if(path.isEmpty()){ //if getPath did not return a list
-            return "No path between " + center + " and " + actor;
+            return "No path between " + tree.root() + " and " + actor;
         }
         String out = "";
         out += actor + "'s number is " + (path.size() - 1) + "\n"; //[actor]'s number should be one less than the size of list
         for(int i = 0; i < path.size() - 1; i++){
             String curr = path.get(i);
             String next = path.get(i + 1); //get and store actor at i and actor at i + 1 in the path
-            String movie = treePath.getLabel(curr, next).toString(); //gets the movie(s) that features curr and next from their edge label
+            String movie = tree.getLabel(curr).toString(); //gets the movie(s) that features curr and next (its parent) from their edge label
             if (i == path.size() - 2){
                 //last line added, no new line needed
                 out += curr + " appeared in " + movie + " with " + next;
@@ -62,6 +167,83 @@ public class BaconGame {
         return out;
     }
 
+    /**
+     * Finds a shortest path between any two actors with a bidirectional bfs, without changing the center of the universe
+     *
+     * @param from the name of the actor at the start of the path
+     * @param to the name of the actor at the end of the path
+     * @return the path as a String
+     */
+    public String findPath(String from, String to){
+        return findPath(pairSearch, from, to);
+    }
+
+    /**
+     * Finds a shortest path between any two actors with a given bidirectional search (one per thread)
+     *
+     * @param search search over this game's graph
+     * @param from the name of the actor at the start of the path
+     * @param to the name of the actor at the end of the path
+     * @return the path as a String
+     */
+    public String findPath(BidirectionalBfs<String, Set<String>> search, String from, String to){
+        List<String> path = search.path(from, to);
+        if (path == null){ //no path, or one of the actors isn't in the graph
+            return "No path between " + from + " and " + to;
+        }
+        List<Set<String>> movies = BaconGraph.pathLabels(baconGraph, path); //movie(s) shared by each consecutive pair
+        String out = from + " and " + to + " are separated by " + (path.size() - 1);
+        for (int i = 0; i < path.size() - 1; i++){
+            out += "\n" + path.get(i) + " appeared in " + movies.get(i) + " with " + path.get(i + 1);
+        }
+        return out;
+    }
+
+    /**
+     * Finds how far apart two actors are, without the path: from the landmark bounds when they agree,
+     * otherwise by a bidirectional search (one per thread)
+     *
+     * @param search search over this game's graph, for pairs the landmarks don't settle
+     * @param from one actor
+     * @param to the other actor
+     * @return the separation, or why there isn't one
+     */
+    public String separation(BidirectionalBfs<String, Set<String>> search, String from, String to){
+        int a = baconGraph.indexOf(from), b = baconGraph.indexOf(to);
+        if (a < 0){
+            return from + " does not exist.";
+        }
+        if (b < 0){
+            return to + " does not exist.";
+        }
+        if (!components.connected(a, b)){
+            return "No path between " + from + " and " + to + "; their separation is infinite";
+        }
+        return from + " and " + to + " are separated by " + landmarks.distance(a, b, search);
+    }
+
+    /** the landmark index behind separation(), e.g. to save next to a snapshot */
+    public LandmarkIndex<String, Set<String>> landmarks(){
+        return landmarks;
+    }
+
+    /**
+     * Answers "what is actor's number" for the center of a path tree
+     *
+     * @param tree path tree of the center
+     * @param actor the name of the actor
+     * @return the path to the center, or why there isn't one
+     */
+    public String numberOf(ShortestPathTree<String, Set<String>> tree, String actor){
+        if (tree.hasVertex(actor)){ //if actor is a valid vertex within path tree
+            return findPath(tree, actor);
+        }
+        else if (hasInfiniteSep(tree, actor)){ //if actor is a vertex with infinite separation from center
+            return "No path to center; " + actor + "'s " + tree.root() + " number is infinite";
+        }
+        return actor + " does not exist."; //not a valid vertex in the graph
+    }
+
     /**
      * Finds and orders top/bottom centers of the universe, sorted by average separation between non-centers and center;
      * "top" center corresponds to lesser average separation, and vice versa
@@ -71,9 +253,10 @@ public class BaconGame {
      */
     public PriorityQueue<String> separations (String order){
         Map<String, Double> separations = new HashMap<>();
-        for (String person : treePath.vertices()) { //for each actor in baconGraph
-            Graph<String, Set<String>> actorPaths = BaconGraph.bfs(baconGraph, person); //does a bfs and gets a shortest path tree using the actor in baconGraph as a center
-            separations.put(person, BaconGraph.averageSeparation(actorPaths, person)); //create a new entry in map, with the actor and the result of averageSeparation using the path tree we created, with the actor as the root
+        int[] sources = connectedIds();
+        double[] averages = closeness.averages(sources); //one bfs per actor connected to the center, run in parallel
+        for (int j = 0; j < sources.length; j++) {
+            separations.put(baconGraph.vertex(sources[j]), averages[j]); //create a new entry in map, with the actor and its average separation
         }
         PriorityQueue<String> orderedSeparations = null;
         if(order.equals("top")){ //if "top" was passed in
@@ -91,6 +274,82 @@ public class BaconGame {
         return orderedSeparations;
     }
 
+    /**
+     * Finds the top/bottom k centers of the universe, keeping only k candidates while ranking instead of ordering every actor;
+     * ties are broken the same way every time (by actor id)
+     *
+     * @param order either "top" or "bottom"
+     * @param k how many centers to return
+     * @return up to k actors in order, null if order is not "top" or "bottom"
+     */
+    public List<String> separations(String order, int k){
+        return separations(treePath, order, k);
+    }
+
+    /**
+     * Finds the top/bottom k centers among the actors connected to the center of a given path tree
+     *
+     * @param tree path tree of the center
+     * @param order either "top" or "bottom"
+     * @param k how many centers to return
+     * @return up to k actors in order, null if order is not "top" or "bottom"
+     */
+    public List<String> separations(ShortestPathTree<String, Set<String>> tree, String order, int k){
+        if (order.equals("top")){
+            return closeness.top(connectedIds(tree), k);
+        }
+        else if (order.equals("bottom")){
+            return closeness.bottom(connectedIds(tree), k);
+        }
+        return null;
+    }
+
+    /**
+     * Finds the top/bottom k centers from estimates off a sample of APPROX_PIVOTS actors, checking exactly only the actors
+     * the estimates can't rule out; the result says how much that check changed the estimated ranking
+     * uses one shared scratch, so only for play(), not concurrent callers
+     *
+     * @param order either "top" or "bottom"
+     * @param k how many centers to return
+     * @param pivots how many sampled actors to bfs from (more is slower but leaves fewer to check)
+     * @return the ranking and its report, null if order is not "top" or "bottom"
+     */
+    public ApproximateCloseness.Result<String> approximateSeparations(String order, int k, int pivots){
+        if (order.equals("top")){
+            return approximate.top(connectedIds(treePath), k, pivots, APPROX_SEED, APPROX_Z);
+        }
+        else if (order.equals("bottom")){
+            return approximate.bottom(connectedIds(treePath), k, pivots, APPROX_SEED, APPROX_Z);
+        }
+        return null;
+    }
+
+    /**
+     * ids of the actors connected to the current center (including the center), which are the candidates for separations;
+     * that's the center's component, so actors in other components are never compared against it
+     */
+    private int[] connectedIds(){
+        return connectedIds(treePath);
+    }
+
+    private int[] connectedIds(ShortestPathTree<String, Set<String>> tree){
+        return components.members(components.component(tree.rootId()));
+    }
+
+    /**
+     * The connected component of the center of a path tree; centers in the same component rank the same candidates
+     */
+    public int componentOf(ShortestPathTree<String, Set<String>> tree){
+        return components.component(tree.rootId());
+    }
+
+    /**
+     * number of actors connected to the center of tree, not counting the center
+     */
+    private int connectedCount(ShortestPathTree<String, Set<String>> tree){
+        return components.size(components.component(tree.rootId())) - 1;
+    }
+
     /**
      * Finds actors that are within [low, high] degree (# of undirected edges in BaconGraph)
      *
@@ -99,16 +358,7 @@ public class BaconGame {
      * @return an ordered list of actors within bounds
      */
     public List<String> withinDegree(int low, int high){
-        List<String> actors = new ArrayList<>();
-        //loop through each actor in the main graph
-        for (String actor : baconGraph.vertices()){
-            int degree = baconGraph.inDegree(actor); //outDegree would achieve the same result
-            if(degree <= high && degree >= low){ //if degree of actor is within bounds of [low, high]
-                actors.add(actor); //add to list
-            }
-        }
-        actors.sort((String a1, String a2)-> baconGraph.inDegree(a2) - baconGraph.inDegree(a1)); //sort actors from largest to smallest inDegree
-        return actors;
+        return degrees.range(low, high); //slice of the degree index, already from largest to smallest inDegree
     }
 
     /**
@@ -117,7 +367,43 @@ public class BaconGame {
      * @return a set of actors with infinite separation from current center
      */
     public Set<String> infiniteSep(){
-        return BaconGraph.missingVertices(baconGraph, treePath); //call missingVertices to find vertices that could not be reached by bfs
+        if (!center.equals(infiniteCenter)){ //only rebuilt when the center has changed
+            infinite = infiniteSep(treePath);
+            infiniteCenter = center;
+        }
+        return infinite;
+    }
+
+    /**
+     * Finds the actors with infinite separation from the center of a given path tree
+     *
+     * @param tree path tree of the center
+     * @return a read-only set of actors not connected to the center
+     */
+    public Set<String> infiniteSep(ShortestPathTree<String, Set<String>> tree){
+        int centerComponent = components.component(tree.rootId());
+        Set<String> missing = new HashSet<>();
+        for (int actor = 0; actor < baconGraph.numVertices(); actor++){ //one pass over the component labels
+            if (components.component(actor) != centerComponent){ //a different component can't be reached by bfs
+                missing.add(baconGraph.vertex(actor));
+            }
+        }
+        return Collections.unmodifiableSet(missing);
+    }
+
+    /**
+     * Whether one actor has infinite separation from the center of the universe, in constant time
+     *
+     * @param actor the name of the actor
+     * @return true if the actor is in the graph but not connected to the center
+     */
+    public boolean hasInfiniteSep(String actor){
+        return hasInfiniteSep(treePath, actor);
+    }
+
+    private boolean hasInfiniteSep(ShortestPathTree<String, Set<String>> tree, String actor){
+        int id = baconGraph.indexOf(actor);
+        return id >= 0 && !components.connected(id, tree.rootId());
     }
 
     /**
@@ -128,17 +414,14 @@ public class BaconGame {
      * @return an ordered list of actors within bounds
      */
     public List<String> sortActors(int low, int high){
-        PriorityQueue<String> sorted = new PriorityQueue<>((String actor1, String actor2) -> sepFromCen(actor1) - sepFromCen(actor2)); //anonymous function compares the separations of actor1 and actor2 from current center; calls sepFromCen
-        for (String actor : treePath.vertices()){
-            if (sepFromCen(actor) <= high && sepFromCen(actor) >= low){ //if separation from center is within [low, high] bounds
-                sorted.add(actor); //add actor to pq
-            }
-        }
-        List<String> ordered = new ArrayList<>(); //using priority queue toString messes up order
-        while(!sorted.isEmpty()) {
-            ordered.add(sorted.poll()); //poll from pq, add to list in order
-        }
-        return ordered;
+        return sortActors(treePath, low, high);
+    }
+
+    /**
+     * Finds actors that are within [low, high] separation from the center of a given path tree
+     */
+    public List<String> sortActors(ShortestPathTree<String, Set<String>> tree, int low, int high){
+        return new ArrayList<>(tree.vertices(low, high)); //distance buckets are contiguous in bfs order, so [low, high] is one slice
     }
 
     /**
@@ -146,15 +429,10 @@ public class BaconGame {
      * helper method for sortActors
      *
      * @param actor the name of the target actor
-     * @return the actor's separation from center as an int
+     * @return the actor's separation from center as an int, -1 if not connected to center
      */
     public int sepFromCen(String actor){
-        int sep = 0;
-        while(treePath.outDegree(actor) > 0){ //while path can still be followed to center (actor has out neighbors)
-            sep++; //increment separation
-            actor = treePath.outNeighbors(actor).iterator().next(); //update actor to point to its parent (a costar that actor has been in a movie with)
-        }
-        return sep;
+        return treePath.distance(actor); //bfs already recorded each actor's distance
     }
 
     public void play() throws Exception {
@@ -167,13 +445,16 @@ public class BaconGame {
         //list of possible commands
         System.out.println("Commands:\n" +
                 "c <#>: list top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation\n" +
+                "a <#>: like c, but estimated from a sample of actors and checked exactly only where the estimates are close\n" +
                 "d <low> <high>: list actors sorted by degree, with degree between low and high\n" +
                 "i: list actors with infinite separation from the current center\n" +
                 "p <name>: find path from <name> to current center of the universe\n" +
+                "b <name> <name>: find path between any two actors\n" +
+                "n <name> <name>: separation between any two actors, without the path\n" +
                 "s <low> <high>: list actors sorted by non-infinite separation from the current center, with separation between low and high\n" +
                 "u <name>: make <name> the center of the universe\n" +
                 "q: quit game\n" +
-                center + " is now the center of the acting universe, connected to " + (treePath.numVertices() - 1) + "/" + baconGraph.numVertices() + " actors with average separation " + BaconGraph.averageSeparation(treePath, center));
+                centerLine(treePath));
 
         String input = in.nextLine(); //gets user's keyboard input
         while (!input.equals("q")){ //while user has not quit game
@@ -186,16 +467,10 @@ public class BaconGame {
                 }
                 List<String> centers = new ArrayList<>();
                 if (i > 0){ //user's input was a positive number
-                    PriorityQueue<String> top = separations("top"); //call to separations with "top"
-                    for(int j = 0; j < i; j++){
-                        centers.add(top.poll()); //add to centers i times
-                    }
+                    centers = timed("c", () -> separations("top", i)); //call to separations with "top", keeping only i centers
                 }
                 else if (i < 0){ //user's input was a negative number
-                    PriorityQueue<String> bottom = separations("bottom"); //call to separations with "bottom"
-                    for(int j = 0; j < i * (-1); j++){
-                        centers.add(bottom.poll()); //add to centers i times
-                    }
+                    centers = timed("c", () -> separations("bottom", -i)); //call to separations with "bottom"
                 }
                 else { //user inputted i as 0
                     System.out.println("No centers");
@@ -203,13 +478,30 @@ public class BaconGame {
                 System.out.println(centers);
             }
 
+            else if (input.equals("a")){
+                System.out.println("How many possible centers to display (positive or negative number)?");
+                int i = in.nextInt();
+                in.nextLine();
+                if(Math.abs(i) > baconGraph.numVertices()){
+                    throw new Exception("Invalid number of actors");
+                }
+                if (i == 0){
+                    System.out.println("No centers\n[]");
+                }
+                else {
+                    ApproximateCloseness.Result<String> result = timed("a", () -> approximateSeparations(i > 0 ? "top" : "bottom", Math.abs(i), APPROX_PIVOTS));
+                    System.out.println(result.ranked());
+                    System.out.println(result); //how much the exact check changed the estimates
+                }
+            }
+
             else if (input.equals("d")){
                 System.out.println("Lower bound degree:");
                 int low = in.nextInt(); //prompts user to enter an integer
                 System.out.println("Upper bound degree: ");
                 int high = in.nextInt(); //prompts user to enter another integer
                 in.nextLine();
-                List<String> actors = withinDegree(low, high); //call to withinDegree with bounds low and high
+                List<String> actors = timed("d", () -> withinDegree(low, high)); //call to withinDegree with bounds low and high
                 if (actors.isEmpty()){ //no actors were within [low, high] degree
                     System.out.println("No actors within specified degrees");
                 } else {
@@ -218,29 +510,36 @@ public class BaconGame {
             }
 
             else if (input.equals("i")){
-                System.out.println(infiniteSep()); //call to infiniteSep()
+                System.out.println(timed("i", () -> infiniteSep())); //call to infiniteSep()
             }
 
             else if (input.equals("p")){
                 System.out.println("Whose " + center + " number would you like to calculate?");
                 String pathFromActor = in.nextLine(); //prompts user to enter an actor name
-                if (treePath.hasVertex(pathFromActor)){ //if user input is a valid vertex within path tree
-                    System.out.println(findPath(pathFromActor)); //call to findPath with said vertex
-                }
-                else if (infiniteSep().contains(pathFromActor)){ //if user input is a vertex with infinite separation from center
-                    System.out.println("No path to center; " + pathFromActor + "'s " + center + " number is infinite");
-                } else { //if user input is not a valid vertex in the graph
-                    System.out.println(pathFromActor + " does not exist.");
-                }
+                System.out.println(timed("p", () -> numberOf(treePath, pathFromActor))); //path to center, or why there isn't one
 
             }
+            else if (input.equals("b")){
+                System.out.println("First actor:");
+                String from = in.nextLine();
+                System.out.println("Second actor:");
+                String to = in.nextLine();
+                System.out.println(timed("b", () -> findPath(from, to))); //bidirectional search, current center unchanged
+            }
+            else if (input.equals("n")){
+                System.out.println("First actor:");
+                String from = in.nextLine();
+                System.out.println("Second actor:");
+                String to = in.nextLine();
+                System.out.println(timed("n", () -> separation(pairSearch, from, to))); //landmark bounds, searching only if they differ
+            }
             else if (input.equals("s")){
                 System.out.println("Lowest separation:"); // ask user for lower bound
                 int low = in.nextInt();
                 System.out.println("Highest separation"); // ask user for upper bound
                 int high = in.nextInt();
                 in.nextLine();
-                List<String> actors = sortActors(low, high); //call to sortActors with bounds low and high
+                List<String> actors = timed("s", () -> sortActors(low, high)); //call to sortActors with bounds low and high
                 if (actors.isEmpty()){ //no actors were within [low, high] bounds
                     System.out.println("No actors within specified separations");
                 } else {
@@ -252,7 +551,7 @@ public class BaconGame {
                 System.out.println("New center of universe: ");
                 String newCenter = in.nextLine();
                 if (baconGraph.hasVertex(newCenter)){ //if user input is a valid vertex within the graph
-                    changeCenter(newCenter); //call changeCenter with the new center user passed in
+                    timed("u", () -> { changeCenter(newCenter); return null; }); //call changeCenter with the new center user passed in
                 }
                 else {
                     System.out.println(newCenter + " does not exist."); //if invalid actor inputted
@@ -266,7 +565,20 @@ public class BaconGame {
         in.close(); //close scanner once "q" is pressed
     }
 
+    /**
+     * does one command's work, recording how long it took (not counting the prompts) in the command.<name> timer
+     */
+    private static <T> T timed(String command, Supplier<T> work){
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            Metrics.timer("command." + command).recordSince(start);
+        }
+    }
+
     public static void main(String[] args) {
+        Metrics.export(); //jmx, and a periodic dump if -Dbacon.metrics.dump is set
         //create new BaconGame, pass in proper txt files and set Kevin Bacon as default center
         BaconGame test1 = new BaconGame("bacon/moviesTest.txt", "bacon/actorsTest.txt", "bacon/movie-actorsTest.txt", "Kevin Bacon");
         //BaconGame test2 = new BaconGame("bacon/movies.txt", "bacon/actors.txt", "bacon/movie-actors.txt", "Kevin Bacon");
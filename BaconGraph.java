@@ -1,6 +1,10 @@
 import java.util.*;
 
 public class BaconGraph<V,E> {
+	private static final Metrics.Counter SEARCHES = Metrics.counter("adjmap.bfs.searches");
+	private static final Metrics.Counter VISITED = Metrics.counter("adjmap.bfs.vertices");
+	private static final Metrics.Counter SCANNED = Metrics.counter("adjmap.bfs.edges");
+	private static final Metrics.Histogram TIME = Metrics.timer("adjmap.bfs.time");
 
 	/**
 	 * modified breadth first search on a bacon graph to create a path tree from the center of the universe to its connected vertices
@@ -9,6 +13,8 @@ public class BaconGraph<V,E> {
 	 * @return a path tree
 	 */
 	public static <V, E> Graph<V, E> bfs(Graph<V, E> g, V source) {
+		long start = System.nanoTime();
+		long scanned = 0; //edges looked at, for the metrics
 		Graph<V, E> tree = new AdjMapGraph<>(); //initialize path tree
 		tree.insertVertex(source); //insert source into tree
 		Set<V> visited = new HashSet<V>(); //set to track which vertices have already been visited
@@ -19,6 +25,7 @@ public class BaconGraph<V,E> {
 		while (!queue.isEmpty()) { //loop until no more vertices
 			V u = queue.remove(); //dequeue
 			for (V v : g.inNeighbors(u)) { //loop over in neighbors
+				scanned++;
 				if (!visited.contains(v)) { //if neighbor not visited, then neighbor is discovered from this vertex
 					visited.add(v); //add neighbor to visited set
 					queue.add(v); //enqueue neighbor
@@ -27,6 +34,10 @@ public class BaconGraph<V,E> {
 				}
 			}
 		}
+		SEARCHES.increment();
+		VISITED.add(visited.size());
+		SCANNED.add(scanned);
+		TIME.recordSince(start);
 		return tree;
 	}
 
@@ -49,6 +60,23 @@ public class BaconGraph<V,E> {
 		return null; //v was not a valid vertex; return null
 	}
 
+	/**
+	 * given a shortest path tree and a vertex, construct a path from the vertex back to the center of the universe
+	 * reads the tree's parent array directly (any ShortestPathTree, including a CompactPathTree)
+	 * @param tree path tree used to traverse through
+	 * @param v the vertex from which the path states
+	 * @return list of vertices from v to the center of the universe, null if v is not connected to the center
+	 */
+	public static <V, E> List<V> getPath(ShortestPathTree<V, E> tree, V v) {
+		int id = tree.graph().indexOf(v);
+		if (id < 0 || tree.distance(id) < 0) return null; //v not reached from the center
+		List<V> path = new ArrayList<>(tree.distance(id) + 1);
+		for (; id >= 0; id = tree.parent(id)) { //follow parents up to the center, whose parent is -1
+			path.add(tree.graph().vertex(id));
+		}
+		return path;
+	}
+
 	/**
 	 * given a graph and a subgraph (here, shortest path tree),
 	 * determine which vertices are in the graph but not the subgraph (here, not reached by BFS)
@@ -58,24 +86,31 @@ public class BaconGraph<V,E> {
 	 */
 	public static <V, E> Set<V> missingVertices(Graph<V, E> graph, Graph<V, E> subgraph) {
 		Set<V> missing = new HashSet<>();
-		for (V v1 : graph.vertices()) {
-			boolean found = false;
-			for (V v2 : subgraph.vertices()) {
-				if (v1.equals(v2)) { //if vertex found in graph was found in subgraph
-					found = true; //set found to true and break from loop
-					break;
-				}
-			}
-			if (!found) { //if found is still false
-				missing.add(v1); //vertex from graph was not found in subgraph; add to missing set
+		for (V v : graph.vertices()) {
+			if (!subgraph.hasVertex(v)) { //hash probe instead of scanning the whole subgraph
+				missing.add(v); //vertex from graph was not found in subgraph; add to missing set
 			}
 		}
 		return missing;
 	}
 
+	/**
+	 * given a graph and a shortest path tree over it, determine which vertices were not reached by the bfs
+	 * @param graph larger graph
+	 * @param tree shortest path tree built by a bfs on graph
+	 * @return set of vertices missing from the tree but present in graph
+	 */
+	public static <V, E> Set<V> missingVertices(Graph<V, E> graph, ShortestPathTree<V, E> tree) {
+		Set<V> missing = new HashSet<>();
+		for (V v : graph.vertices()) {
+			if (!tree.hasVertex(v)) missing.add(v); //constant time check against the distance array
+		}
+		return missing;
+	}
+
 	/**
 	 * find the average distance-from-root in a shortest path tree
-	 * calls recursive method totalDistance to find total distance from root, then divides by total number of vertices in tree
+	 * calls totalDistance to find total distance from root, then divides by total number of vertices in tree
 	 * @param tree path tree with a center
 	 * @param root center of universe
 	 * @return double representation of average distance of each vertex in tree from root
@@ -85,18 +120,85 @@ public class BaconGraph<V,E> {
 	}
 
 	/**
-	 * recursive helper for averageSeparation
-	 * finds total distance of each vertex from the center of the universe
+	 * helper for averageSeparation
+	 * finds total distance of each vertex from the center of the universe, walking the tree a level at a time
+	 * (no recursion, so deep trees can't overflow the stack)
 	 * @param tree path tree being traversed
 	 * @param root center of universe
 	 * @param dist initial total distance (usually 0)
 	 * @return int for total distance from every vertex in tree to root
 	 */
 	public static <V, E> int totalDistance(Graph<V, E> tree, V root, int dist) {
-		int totalDist = dist;
-		for (V child : tree.inNeighbors(root)) {
-			totalDist += totalDistance(tree, child, dist + 1); //recursively call totalDistance on each in neighbor of root, while incrementing dist
+		int totalDist = 0;
+		List<V> level = new ArrayList<>();
+		level.add(root);
+		while (!level.isEmpty()) {
+			List<V> next = new ArrayList<>();
+			for (V v : level) {
+				totalDist += dist;
+				for (V child : tree.inNeighbors(v)) next.add(child); //children point up to their parent, so they are its in neighbors
+			}
+			level = next;
+			dist++;
 		}
 		return totalDist;
 	}
+
+	/**
+	 * find the average distance-from-root in a shortest path tree, from the stats its bfs already gathered
+	 * @param tree path tree with a center
+	 * @return double representation of average distance of each vertex in tree from root
+	 */
+	public static <V, E> double averageSeparation(ShortestPathTree<V, E> tree) {
+		return tree.stats().average();
+	}
+
+	/**
+	 * find the average separation of many sources at once with a bit-parallel multi-source bfs,
+	 * 64 sources per pass over the graph
+	 * gives the same value as averageSeparation on a bfs tree from each source
+	 * @param g graph being searched
+	 * @param sources ids of the sources
+	 * @return average separation of each source, parallel to sources
+	 */
+	public static <V, E> double[] averageSeparations(CsrGraph<V, E> g, int[] sources) {
+		MultiSourceBfs<V, E> msbfs = new MultiSourceBfs<>(g);
+		long[] totals = new long[msbfs.width()];
+		int[] reached = new int[msbfs.width()];
+		double[] averages = new double[sources.length];
+		for (int from = 0; from < sources.length; from += msbfs.width()) { //one batch of sources per pass
+			int to = Math.min(from + msbfs.width(), sources.length);
+			msbfs.run(sources, from, to, totals, reached);
+			for (int i = from; i < to; i++) {
+				averages[i] = (double) totals[i - from] / (double) reached[i - from]; //total distance/total vertices reached
+			}
+		}
+		return averages;
+	}
+
+	/**
+	 * find a shortest path between any two vertices with a bidirectional bfs, without building a path tree
+	 * allocates fresh search buffers; keep a BidirectionalBfs around to answer many queries
+	 * @param g graph being searched
+	 * @param from start of the path
+	 * @param to end of the path
+	 * @return list of vertices from "from" to "to", null if they are not connected
+	 */
+	public static <V, E> List<V> shortestPath(CsrGraph<V, E> g, V from, V to) {
+		return new BidirectionalBfs<>(g).path(from, to);
+	}
+
+	/**
+	 * the labels along a path
+	 * @param g graph the path is in
+	 * @param path list of vertices, each with an edge to the next
+	 * @return label of the edge from path[i] to path[i+1], for each i
+	 */
+	public static <V, E> List<E> pathLabels(Graph<V, E> g, List<V> path) {
+		List<E> labels = new ArrayList<>();
+		for (int i = 0; i < path.size() - 1; i++) {
+			labels.add(g.getLabel(path.get(i), path.get(i + 1)));
+		}
+		return labels;
+	}
 }
\ No newline at end of file
@@ -2,6 +2,10 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * builds kevin bacon graph to be used in BaconGame
@@ -21,6 +25,7 @@ public class BaconGraphBuilder {
      */
     public static AdjMapGraph<String, Set<String>> createGraph(String movieFilePath, String actorFilePath, String movieActorFilePath) throws IOException{
         AdjMapGraph<String, Set<String>> baconGraph = new AdjMapGraph<>();
+        long start = System.nanoTime();
 
         BufferedReader movieInput = new BufferedReader(new FileReader(movieFilePath)); //set u buffered readers for each file path
         BufferedReader actorInput = new BufferedReader(new FileReader(actorFilePath));
@@ -54,6 +59,8 @@ public class BaconGraphBuilder {
                 movieActorMap.get(Integer.parseInt(s[0])).add(Integer.parseInt(s[1])); //add to actor list each time movie id appears in file
                 movieActorLine = movieActorInput.readLine();
             }
+            Metrics.timer("createGraph.parse").recordSince(start);
+            start = System.nanoTime();
 
             for (Integer key : actorMap.keySet()){
                 baconGraph.insertVertex(actorMap.get(key)); //insert all actors into graph
@@ -72,6 +79,7 @@ public class BaconGraphBuilder {
                     }
                 }
             }
+            Metrics.timer("createGraph.insert").recordSince(start);
 
         }
         catch (IOException e){
@@ -89,4 +97,534 @@ public class BaconGraphBuilder {
         }
         return baconGraph; //completed graph returned
     }
-}
+
+    /**
+     * creates the same graph as createGraph, but scans the files as bytes (PipeFileScanner) instead of splitting lines,
+     * and adds each actor's costar edges while streaming through movie-actors, so no per-line strings or boxed ids are made;
+     * the graph keeps its in-degree index up to date as edges go in (DegreeIndexedGraph.degreeIndex())
+     * @param movieFilePath string filepath for file w movie ids attached to movie names
+     * @param actorFilePath string filepath for file w actor ids attached to actor names
+     * @param movieActorFilePath string filepath for file w actor ids attached to the ids of the movie(s) they've appeared in
+     * @return a graph w relationships between all actors listed in the files + movie names as edge labels
+     * @throws IOException if error while reading files, or if a movie pairs up an actor id missing from the actor file
+     */
+    public static DegreeIndexedGraph<String, Set<String>> loadGraph(String movieFilePath, String actorFilePath, String movieActorFilePath) throws IOException{
+        DegreeIndexedGraph<String, Set<String>> baconGraph = new DegreeIndexedGraph<>();
+        long start = System.nanoTime();
+
+        IdMap movieIndex = new IdMap(); //movie id -> index into titles
+        List<String> titles = new ArrayList<>();
+        readIdFile(movieFilePath, movieIndex, titles);
+        IdMap actorIndex = new IdMap(); //actor id -> index into names
+        List<String> names = new ArrayList<>();
+        readIdFile(actorFilePath, actorIndex, names);
+        for (String name : names){
+            baconGraph.insertVertex(name); //insert all actors into graph
+        }
+        Metrics.timer("loadGraph.ids").recordSince(start);
+        start = System.nanoTime();
+
+        //cast lists kept as linked lists in flat arrays: entry i holds an actor index and the cast's previous entry
+        IdMap castHead = new IdMap(); //movie id -> last entry of its cast
+        int[] castActor = new int[1024];
+        int[] castPrev = new int[1024];
+        int entries = 0;
+        try (PipeFileScanner movieActors = new PipeFileScanner(movieActorFilePath)) {
+            while (movieActors.nextLine()){
+                int movie = movieActors.readInt();
+                int actorId = movieActors.readInt();
+                int actor = actorIndex.get(actorId); //-1 if not in the actor file
+                int head = castHead.get(movie);
+                if (head >= 0){ //pair the new actor with everyone already in the cast
+                    int movieSlot = movieIndex.get(movie);
+                    String title = movieSlot < 0 ? null : titles.get(movieSlot); //createGraph labels unknown movies with null too
+                    for (int e = head; e >= 0; e = castPrev[e]){
+                        if (actor < 0 || castActor[e] < 0){
+                            throw new IOException(movieActorFilePath + " line " + movieActors.lineNumber() + ": movie " + movie + " pairs an actor id missing from " + actorFilePath);
+                        }
+                        addCostar(baconGraph, names.get(castActor[e]), names.get(actor), title);
+                    }
+                }
+                if (entries == castActor.length){
+                    castActor = Arrays.copyOf(castActor, entries * 2);
+                    castPrev = Arrays.copyOf(castPrev, entries * 2);
+                }
+                castActor[entries] = actor;
+                castPrev[entries] = head;
+                castHead.put(movie, entries++);
+            }
+        }
+        Metrics.timer("loadGraph.casts").recordSince(start); //parsing and edge insertion are interleaved here
+        return baconGraph; //completed graph returned
+    }
+
+    /**
+     * parallel version of loadGraph that builds the frozen graph directly
+     * movies are split across threads, each emitting (actor, costar, movie) triples for its casts into its own buffers;
+     * the triples are then bucketed by actor, sorted and deduplicated row by row (also in parallel) into the
+     * adjacency arrays, with one label set per costar pair shared by both directions
+     * @param movieFilePath string filepath for file w movie ids attached to movie names
+     * @param actorFilePath string filepath for file w actor ids attached to actor names
+     * @param movieActorFilePath string filepath for file w actor ids attached to the ids of the movie(s) they've appeared in
+     * @param threads how many threads to build with
+     * @param report if not null, filled with how long each build phase took, and the graph's component index
+     * @return the same costar graph as loadGraph, already frozen
+     * @throws IOException if error while reading files, or if a movie pairs up an actor id missing from the actor file
+     */
+    public static CsrGraph<String, Set<String>> buildGraph(String movieFilePath, String actorFilePath, String movieActorFilePath,
+                                                          int threads, BuildReport report) throws IOException{
+        if (report == null) report = new BuildReport();
+        long start = System.nanoTime();
+
+        IdMap movieIndex = new IdMap(); //movie id -> index into titles
+        List<String> titles = new ArrayList<>();
+        readIdFile(movieFilePath, movieIndex, titles);
+        IdMap actorIndex = new IdMap(); //actor id -> index into names
+        List<String> names = new ArrayList<>();
+        readIdFile(actorFilePath, actorIndex, names);
+        int[] vertexOf = mergeByName(names); //actors sharing a name are one vertex, as in createGraph
+
+        IdMap castIndex = new IdMap(); //movie id -> cast number, in order of first appearance in movie-actors
+        List<String> castTitles = new ArrayList<>(); //title of each cast's movie (null if not in the movie file)
+        int[] lineCast = new int[1024], lineActor = new int[1024]; //cast number and actor index of each line
+        int lines = 0;
+        try (PipeFileScanner movieActors = new PipeFileScanner(movieActorFilePath)) {
+            while (movieActors.nextLine()){
+                int movie = movieActors.readInt();
+                int actor = actorIndex.get(movieActors.readInt());
+                if (actor >= 0) actor = vertexOf[actor];
+                int cast = castIndex.get(movie);
+                if (cast < 0){
+                    cast = castTitles.size();
+                    castIndex.put(movie, cast);
+                    int movieSlot = movieIndex.get(movie);
+                    castTitles.add(movieSlot < 0 ? null : titles.get(movieSlot));
+                }
+                if (lines == lineCast.length){
+                    lineCast = Arrays.copyOf(lineCast, lines * 2);
+                    lineActor = Arrays.copyOf(lineActor, lines * 2);
+                }
+                lineCast[lines] = cast;
+                lineActor[lines++] = actor;
+            }
+        }
+        report.phase("parse", System.nanoTime() - start);
+
+        //group lines into casts with a counting sort: cast c is castMembers[castOffsets[c] .. castOffsets[c+1])
+        start = System.nanoTime();
+        int casts = castTitles.size();
+        int[] castOffsets = new int[casts + 1];
+        for (int i = 0; i < lines; i++) castOffsets[lineCast[i] + 1]++;
+        for (int c = 0; c < casts; c++) castOffsets[c + 1] += castOffsets[c];
+        int[] castMembers = new int[lines];
+        int[] fill = Arrays.copyOf(castOffsets, casts);
+        for (int i = 0; i < lines; i++) castMembers[fill[lineCast[i]]++] = lineActor[i];
+        for (int c = 0; c < casts; c++){
+            int size = castOffsets[c + 1] - castOffsets[c];
+            for (int i = castOffsets[c]; size > 1 && i < castOffsets[c + 1]; i++){
+                if (castMembers[i] < 0){
+                    throw new IOException(movieActorFilePath + ": a movie pairs an actor id missing from " + actorFilePath);
+                }
+            }
+        }
+        report.phase("group", System.nanoTime() - start);
+
+        //components straight from the casts: everyone in a movie is connected, so union each cast member with the first
+        start = System.nanoTime();
+        ComponentIndex.UnionFind costars = new ComponentIndex.UnionFind(names.size());
+        for (int c = 0; c < casts; c++){
+            for (int i = castOffsets[c] + 1; i < castOffsets[c + 1]; i++){
+                costars.union(castMembers[castOffsets[c]], castMembers[i]);
+            }
+        }
+        report.phase("components", System.nanoTime() - start);
+
+        int n = names.size();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            //emit triples, one buffer per chunk of casts, chunks balanced by how many pairs they make
+            start = System.nanoTime();
+            long totalPairs = 0;
+            for (int c = 0; c < casts; c++) totalPairs += pairs(castOffsets[c + 1] - castOffsets[c]);
+            int chunks = Math.max(1, threads * 4);
+            List<Future<Triples>> emitted = new ArrayList<>();
+            int from = 0;
+            long done = 0;
+            for (int chunk = 1; chunk <= chunks && from < casts; chunk++){
+                int to = from;
+                while (to < casts && (chunk == chunks || done < totalPairs * chunk / chunks)){
+                    done += pairs(castOffsets[to + 1] - castOffsets[to]);
+                    to++;
+                }
+                int chunkFrom = from, chunkTo = to;
+                emitted.add(pool.submit(() -> Triples.emit(castOffsets, castMembers, chunkFrom, chunkTo)));
+                from = to;
+            }
+            List<Triples> buffers = new ArrayList<>();
+            for (Future<Triples> f : emitted) buffers.add(get(f));
+            report.phase("generate", System.nanoTime() - start);
+
+            //bucket triples by the smaller actor, packing (costar, cast) into one long so a row sort orders both
+            start = System.nanoTime();
+            int[] rowOffsets = new int[n + 1];
+            for (Triples t : buffers){
+                for (int i = 0; i < t.size; i++) rowOffsets[t.actor[i] + 1]++;
+            }
+            for (int a = 0; a < n; a++) rowOffsets[a + 1] += rowOffsets[a];
+            long[] rows = new long[rowOffsets[n]];
+            int[] rowFill = Arrays.copyOf(rowOffsets, n);
+            for (Triples t : buffers){
+                for (int i = 0; i < t.size; i++) rows[rowFill[t.actor[i]]++] = t.costarCast[i];
+            }
+            buffers = null;
+
+            //sort and dedupe each row in parallel; unique[a] = number of distinct costars of a with a larger (or equal) id
+            int[] unique = new int[n];
+            runRanges(pool, n, chunks, (lo, hi) -> {
+                for (int a = lo; a < hi; a++){
+                    Arrays.sort(rows, rowOffsets[a], rowOffsets[a + 1]);
+                    for (int i = rowOffsets[a]; i < rowOffsets[a + 1]; i++){
+                        if (i == rowOffsets[a] || (rows[i] >>> 32) != (rows[i - 1] >>> 32)) unique[a]++;
+                    }
+                }
+            });
+            report.phase("merge", System.nanoTime() - start);
+
+            //one label per distinct pair, kept in a MovieLabelStore: edge ids come from a prefix sum over rows,
+            //then each edge's distinct title ids are counted and written into the shared pool in parallel
+            start = System.nanoTime();
+            int[] edgeOffsets = new int[n + 1];
+            for (int a = 0; a < n; a++) edgeOffsets[a + 1] = edgeOffsets[a] + unique[a];
+            int edges = edgeOffsets[n];
+            Map<String, Integer> titleIds = new HashMap<>(); //intern titles, so a title shared by two movie ids counts once
+            List<String> internedTitles = new ArrayList<>();
+            int[] castTitleIds = new int[casts];
+            for (int c = 0; c < casts; c++){
+                castTitleIds[c] = titleIds.computeIfAbsent(castTitles.get(c), title -> {
+                    internedTitles.add(title);
+                    return internedTitles.size() - 1;
+                });
+            }
+            int[] labelOffsets = new int[edges + 1];
+            runRanges(pool, n, chunks, (lo, hi) -> { //count each edge's distinct titles
+                for (int a = lo; a < hi; a++){
+                    int e = edgeOffsets[a] - 1, runStart = 0;
+                    for (int i = rowOffsets[a]; i < rowOffsets[a + 1]; i++){
+                        if (i == rowOffsets[a] || (rows[i] >>> 32) != (rows[i - 1] >>> 32)){ //new costar, so new edge
+                            runStart = i;
+                            e++;
+                        }
+                        if (!seenInRun(rows, castTitleIds, runStart, i)) labelOffsets[e + 1]++;
+                    }
+                }
+            });
+            for (int e = 0; e < edges; e++) labelOffsets[e + 1] += labelOffsets[e];
+            int[] labelPool = new int[labelOffsets[edges]];
+            runRanges(pool, n, chunks, (lo, hi) -> { //write them into the pool
+                for (int a = lo; a < hi; a++){
+                    int e = edgeOffsets[a] - 1, runStart = 0, p = 0;
+                    for (int i = rowOffsets[a]; i < rowOffsets[a + 1]; i++){
+                        if (i == rowOffsets[a] || (rows[i] >>> 32) != (rows[i - 1] >>> 32)){
+                            runStart = i;
+                            p = labelOffsets[++e];
+                        }
+                        if (!seenInRun(rows, castTitleIds, runStart, i)) labelPool[p++] = castTitleIds[(int) rows[i]];
+                    }
+                }
+                for (int e = edgeOffsets[lo]; e < edgeOffsets[hi]; e++){
+                    if (labelOffsets[e + 1] - labelOffsets[e] > 1) hashOrder(labelPool, labelOffsets[e], labelOffsets[e + 1], internedTitles, titleIds);
+                }
+            });
+            MovieLabelStore labels = new MovieLabelStore(internedTitles.toArray(new String[0]), labelOffsets, labelPool);
+
+            //undirected adjacency: a pair (a, b) with a <= b goes in row a and (unless a self loop) row b
+            //filling rows in increasing a keeps every row sorted: row x gets its smaller costars first, then its own larger ones
+            int[] offsets = new int[n + 1];
+            for (int a = 0; a < n; a++){
+                for (int i = rowOffsets[a]; i < rowOffsets[a + 1]; i++){
+                    if (i > rowOffsets[a] && (rows[i] >>> 32) == (rows[i - 1] >>> 32)) continue;
+                    int b = (int) (rows[i] >>> 32);
+                    offsets[a + 1]++;
+                    if (b != a) offsets[b + 1]++;
+                }
+            }
+            for (int a = 0; a < n; a++) offsets[a + 1] += offsets[a];
+            int[] targets = new int[offsets[n]], labelIndex = new int[offsets[n]];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int a = 0; a < n; a++){
+                int e = edgeOffsets[a] - 1;
+                for (int i = rowOffsets[a]; i < rowOffsets[a + 1]; i++){
+                    if (i > rowOffsets[a] && (rows[i] >>> 32) == (rows[i - 1] >>> 32)) continue;
+                    int b = (int) (rows[i] >>> 32);
+                    e++;
+                    targets[next[a]] = b;
+                    labelIndex[next[a]++] = e;
+                    if (b != a){
+                        targets[next[b]] = a;
+                        labelIndex[next[b]++] = e;
+                    }
+                }
+            }
+            CsrGraph<String, Set<String>> graph = new CsrGraph<>(names, offsets, targets, labelIndex, labels::label);
+            report.phase("assemble", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            report.components = ComponentIndex.of(graph, costars); //sizes and diameter estimates need the finished graph
+            report.phase("components", System.nanoTime() - start);
+            report.count("components", report.components.numComponents());
+            report.count("triples", rows.length);
+            report.count("edges", edges);
+            report.count("titles", internedTitles.size());
+            return graph;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /** whether the title of the triple at i already appeared in its run (same costar), from runStart */
+    private static boolean seenInRun(long[] rows, int[] castTitleIds, int runStart, int i){
+        int title = castTitleIds[(int) rows[i]];
+        for (int j = runStart; j < i; j++){
+            if (castTitleIds[(int) rows[j]] == title) return true;
+        }
+        return false;
+    }
+
+    /**
+     * reorders the title ids in pool[from..to) to the order a HashSet of those titles iterates in,
+     * so a label prints the same as the HashSet createGraph would have made
+     */
+    private static void hashOrder(int[] pool, int from, int to, List<String> titles, Map<String, Integer> titleIds){
+        Set<String> set = new HashSet<>();
+        for (int i = from; i < to; i++) set.add(titles.get(pool[i]));
+        int i = from;
+        for (String title : set) pool[i++] = titleIds.get(title);
+    }
+
+    /** number of costar pairs in a cast of the given size */
+    private static long pairs(int castSize){
+        return (long) castSize * (castSize - 1) / 2;
+    }
+
+    /** waits for a build task, passing its IOException (or any failure) through */
+    private static <T> T get(Future<T> f) throws IOException{
+        try {
+            return f.get();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("graph build interrupted", e);
+        }
+        catch (ExecutionException e){
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /** work over a range [lo, hi) of rows */
+    private interface RangeTask {
+        void run(int lo, int hi);
+    }
+
+    /** splits [0, n) into chunks, runs them on pool and waits for all of them */
+    private static void runRanges(ExecutorService pool, int n, int chunks, RangeTask task) throws IOException{
+        List<Future<?>> running = new ArrayList<>();
+        for (int c = 0; c < chunks; c++){
+            int lo = (int) ((long) n * c / chunks), hi = (int) ((long) n * (c + 1) / chunks);
+            running.add(pool.submit(() -> task.run(lo, hi)));
+        }
+        for (Future<?> f : running) get(f);
+    }
+
+    /**
+     * one thread's buffer of (actor, costar, cast) triples, with actor <= costar and (costar, cast) packed into a long
+     */
+    private static class Triples {
+        int[] actor = new int[1024];
+        long[] costarCast = new long[1024];
+        int size;
+
+        /** the triples of every pair in casts [from, to) */
+        static Triples emit(int[] castOffsets, int[] castMembers, int from, int to){
+            Triples t = new Triples();
+            for (int c = from; c < to; c++){
+                for (int j = castOffsets[c]; j < castOffsets[c + 1] - 1; j++){
+                    for (int k = j + 1; k < castOffsets[c + 1]; k++){
+                        int a = Math.min(castMembers[j], castMembers[k]), b = Math.max(castMembers[j], castMembers[k]);
+                        t.add(a, ((long) b << 32) | c);
+                    }
+                }
+            }
+            return t;
+        }
+
+        void add(int a, long bc){
+            if (size == actor.length){
+                actor = Arrays.copyOf(actor, size * 2);
+                costarCast = Arrays.copyOf(costarCast, size * 2);
+            }
+            actor[size] = a;
+            costarCast[size++] = bc;
+        }
+    }
+
+    /**
+     * how long each phase of a build took, in the order the phases ran, plus a few counts
+     */
+    public static class BuildReport {
+        private final Map<String, Long> phases = new LinkedHashMap<>(); //phase -> nanoseconds
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private ComponentIndex components;
+
+        void phase(String name, long nanos){
+            phases.merge(name, nanos, Long::sum);
+            Metrics.timer("buildGraph." + name).record(nanos);
+        }
+
+        void count(String name, long value){
+            counts.put(name, value);
+        }
+
+        /** phase name -> nanoseconds spent in it */
+        public Map<String, Long> phases(){
+            return Collections.unmodifiableMap(phases);
+        }
+
+        /** connected components of the built graph, found with union-find over the casts */
+        public ComponentIndex components(){
+            return components;
+        }
+
+        /** count name (e.g. "edges") -> value */
+        public Map<String, Long> counts(){
+            return Collections.unmodifiableMap(counts);
+        }
+
+        public String toString(){
+            StringBuilder out = new StringBuilder();
+            long total = 0;
+            for (Map.Entry<String, Long> phase : phases.entrySet()){
+                out.append(phase.getKey()).append(' ').append(String.format("%.1f", phase.getValue() / 1e6)).append(" ms, ");
+                total += phase.getValue();
+            }
+            out.append("total ").append(String.format("%.1f", total / 1e6)).append(" ms");
+            for (Map.Entry<String, Long> count : counts.entrySet()){
+                out.append(", ").append(count.getKey()).append(' ').append(count.getValue());
+            }
+            return out.toString();
+        }
+    }
+
+    /**
+     * reads an "id|name" file, numbering the names in the order their ids first appear
+     * @param filePath file to read
+     * @param index filled with id -> position in values
+     * @param values filled with the names
+     * @throws IOException if error while reading the file
+     */
+    private static void readIdFile(String filePath, IdMap index, List<String> values) throws IOException{
+        try (PipeFileScanner file = new PipeFileScanner(filePath)) {
+            while (file.nextLine()){
+                int id = file.readInt();
+                String value = file.readString();
+                int i = index.get(id);
+                if (i < 0){ //first time seeing this id
+                    index.put(id, values.size());
+                    values.add(value);
+                }
+                else {
+                    values.set(i, value); //later lines win, like Map.put
+                }
+            }
+        }
+    }
+
+    /**
+     * merges actors that share a name into one vertex, the way the name-keyed graphs of createGraph and loadGraph do
+     * @param names names by actor index; left holding each distinct name once, in first-seen order
+     * @return actor index -> index of its name in names
+     */
+    private static int[] mergeByName(List<String> names){
+        Map<String, Integer> vertexIds = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        int[] vertexOf = new int[names.size()];
+        for (int a = 0; a < names.size(); a++){
+            Integer v = vertexIds.get(names.get(a));
+            if (v == null){ //first actor with this name
+                v = distinct.size();
+                vertexIds.put(names.get(a), v);
+                distinct.add(names.get(a));
+            }
+            vertexOf[a] = v;
+        }
+        names.clear();
+        names.addAll(distinct);
+        return vertexOf;
+    }
+
+    /**
+     * adds movie to the label of the edge between two costars, creating the edge if it isn't there yet
+     */
+    private static void addCostar(AdjMapGraph<String, Set<String>> graph, String actor1, String actor2, String movie){
+        Set<String> label = graph.getLabel(actor1, actor2); //edges always have a label, so null means no edge
+        if (label == null){
+            label = new HashSet<>();
+            graph.insertUndirected(actor1, actor2, label);
+        }
+        label.add(movie);
+    }
+
+    /**
+     * open-addressing map from int ids to non-negative ints, so file ids never get boxed
+     */
+    static class IdMap {
+        private int[] keys = new int[1024];
+        private int[] values = new int[1024];
+        private boolean[] used = new boolean[1024];
+        private int size;
+
+        /** value stored for key, -1 if none */
+        int get(int key){
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; used[i]; i = (i + 1) & mask){
+                if (keys[i] == key) return values[i];
+            }
+            return -1;
+        }
+
+        void put(int key, int value){
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (used[i] && keys[i] != key) i = (i + 1) & mask;
+            if (!used[i]){
+                used[i] = true;
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        int size(){
+            return size;
+        }
+
+        private void grow(){
+            int[] oldKeys = keys, oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++){
+                if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int mix(int key){
+            int h = key * 0x9E3779B9; //spread sequential ids across the table
+            return h ^ (h >>> 16);
+        }
+    }
+}
\ No newline at end of file
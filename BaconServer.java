@@ -0,0 +1,268 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * local http service for the kevin bacon game, answering many clients at once from one loaded graph
+ * the graph and its indexes are immutable and shared; every request names its own center (or gets the server's
+ * default), so no request changes what another sees
+ * requests run on virtual threads when the jvm has them (java 21+) and on a fixed pool otherwise; at most
+ * maxConcurrent are answered at a time and as many more may wait for them; the rest are turned away with 503 as they
+ * arrive, before they reach the request threads, so a burst can't pile up unbounded work; bfs scratch comes from
+ * pools rather than being made per request, and /centers answers are kept per component, as BaconBatch does
+ *
+ * endpoints (GET, plain text answers in the words play() uses):
+ *   /path?actor=name[&center=name]     path from actor to the center
+ *   /path?from=name&to=name            path between two actors
+ *   /separation?low=#&high=#[&center=name]
+ *   /distance?from=name&to=name        separation between two actors, without the path
+ *   /degree?low=#&high=#
+ *   /centers?k=#[&center=name]         top (positive) or bottom (negative) k centers in the center's component
+ *   /metrics[?format=json]             the process's metrics (see Metrics)
+ *
+ * usage: BaconServer <port> <center> (<snapshot> | <movies> <actors> <movie-actors>) [maxConcurrent]
+ */
+public class BaconServer {
+    private static final int MAX_RANKED = 1024; //most /centers answers kept
+    private static final ThreadLocal<Long> ADMITTED_AT = new ThreadLocal<>(); //arrival time of the admitted request a thread is running
+    private static final Metrics.Counter REJECTED = Metrics.counter("server.rejected");
+    private static final Metrics.Counter BAD = Metrics.counter("server.bad");
+
+    private final BaconGame game;
+    private final String defaultCenter;
+    private final Semaphore admitted; //requests being answered or waiting to be
+    private final Semaphore answering; //requests being answered
+    private final ScratchPool<BidirectionalBfs<String, Set<String>>> pairSearches;
+    private final Map<String, String> ranked = new ConcurrentHashMap<>(); //centers answers by component and k
+    private final ExecutorService executor;
+    private final ExecutorService turnAway = Executors.newSingleThreadExecutor(); //answers 503 to requests that weren't admitted
+    private HttpServer server;
+
+    /**
+     * @param game loaded game to answer from (its current center isn't used or changed)
+     * @param defaultCenter center for requests that don't name one
+     * @param maxConcurrent most requests answered at once
+     */
+    public BaconServer(BaconGame game, String defaultCenter, int maxConcurrent) {
+        if (!game.graph().hasVertex(defaultCenter)) throw new IllegalArgumentException(defaultCenter + " does not exist.");
+        this.game = game;
+        this.defaultCenter = defaultCenter;
+        this.admitted = new Semaphore(2 * maxConcurrent);
+        this.answering = new Semaphore(maxConcurrent);
+        this.pairSearches = new ScratchPool<>(() -> new BidirectionalBfs<>(game.graph()), maxConcurrent);
+        this.executor = requestExecutor(maxConcurrent);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 6) {
+            System.out.println("usage: BaconServer <port> <center> (<snapshot> | <movies> <actors> <movie-actors>) [maxConcurrent]");
+            return;
+        }
+        Metrics.export(); //jmx, and a periodic dump if -Dbacon.metrics.dump is set
+        int maxConcurrent = 4 * Runtime.getRuntime().availableProcessors();
+        int files = args.length - 2;
+        if (files == 2 || files == 4) { //trailing concurrency limit
+            maxConcurrent = Integer.parseInt(args[args.length - 1]);
+            files--;
+        }
+        BaconGame game = files == 1 ? new BaconGame(args[2], args[1]) : new BaconGame(args[2], args[3], args[4], args[1]);
+        if (game.graph() == null) return; //the game already said why it couldn't load
+        BaconServer server = new BaconServer(game, args[1], maxConcurrent);
+        server.start(Integer.parseInt(args[0]));
+        System.out.println("serving on port " + args[0] + ", at most " + maxConcurrent + " requests at a time");
+    }
+
+    /**
+     * starts listening on port (0 picks a free one)
+     * @return the port being listened on
+     */
+    public int start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/path", ex -> handle(ex, "path", this::path));
+        server.createContext("/separation", ex -> handle(ex, "separation", this::separation));
+        server.createContext("/degree", ex -> handle(ex, "degree", this::degree));
+        server.createContext("/distance", ex -> handle(ex, "distance", this::distance));
+        server.createContext("/centers", ex -> handle(ex, "centers", this::centers));
+        server.createContext("/metrics", ex -> handle(ex, "metrics", params -> "json".equals(params.get("format")) ? Metrics.json() : Metrics.text()));
+        server.setExecutor(this::admit);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /** stops listening, giving requests in flight up to a second to finish */
+    public void stop() {
+        if (server != null) server.stop(1);
+        executor.shutdown();
+        turnAway.shutdown();
+    }
+
+    /**
+     * runs on the server's dispatcher thread as each request arrives: takes a permit without waiting and hands the
+     * request to the request threads, or to the turn-away thread when none is left
+     */
+    private void admit(Runnable exchange) {
+        long arrived = System.nanoTime();
+        if (!admitted.tryAcquire()) {
+            turnAway.execute(exchange);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                ADMITTED_AT.set(arrived);
+                try {
+                    exchange.run();
+                } finally {
+                    ADMITTED_AT.remove();
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) { //stopping
+            admitted.release();
+            throw e;
+        }
+    }
+
+    /**
+     * answers a request from its query parameters; IllegalArgumentException means a bad request
+     */
+    private interface Endpoint {
+        String answer(Map<String, String> params);
+    }
+
+    private void handle(HttpExchange ex, String name, Endpoint endpoint) throws IOException {
+        Long arrived = ADMITTED_AT.get();
+        try {
+            if (arrived == null) { //full; tell the client to back off rather than queueing without bound
+                REJECTED.increment();
+                ex.getResponseHeaders().set("Retry-After", "1");
+                respond(ex, 503, "Too many requests in flight, try again");
+                return;
+            }
+            if (!ex.getRequestMethod().equals("GET")) {
+                respond(ex, 405, "Only GET is supported");
+                return;
+            }
+            answering.acquireUninterruptibly(); //admission keeps the wait to at most maxConcurrent requests ahead
+            try {
+                respond(ex, 200, endpoint.answer(params(ex.getRequestURI().getRawQuery())));
+            } catch (IllegalArgumentException e) {
+                BAD.increment();
+                respond(ex, 400, e.getMessage());
+            } finally {
+                answering.release();
+                Metrics.timer("server." + name).recordSince(arrived); //answered requests only, including their wait for a thread and a slot
+            }
+        } finally {
+            ex.close();
+        }
+    }
+
+    private String path(Map<String, String> params) {
+        if (params.containsKey("from") || params.containsKey("to")) {
+            BidirectionalBfs<String, Set<String>> search = pairSearches.take();
+            try {
+                return game.findPath(search, required(params, "from"), required(params, "to"));
+            } finally {
+                pairSearches.give(search);
+            }
+        }
+        return game.numberOf(tree(params), required(params, "actor"));
+    }
+
+    private String separation(Map<String, String> params) {
+        List<String> actors = game.sortActors(tree(params), number(params, "low"), number(params, "high"));
+        return actors.isEmpty() ? "No actors within specified separations" : actors.toString();
+    }
+
+    private String distance(Map<String, String> params) {
+        BidirectionalBfs<String, Set<String>> search = pairSearches.take();
+        try {
+            return game.separation(search, required(params, "from"), required(params, "to"));
+        } finally {
+            pairSearches.give(search);
+        }
+    }
+
+    private String degree(Map<String, String> params) {
+        List<String> actors = game.withinDegree(number(params, "low"), number(params, "high"));
+        return actors.isEmpty() ? "No actors within specified degrees" : actors.toString();
+    }
+
+    private String centers(Map<String, String> params) {
+        int k = number(params, "k");
+        if (Math.abs(k) > game.graph().numVertices()) throw new IllegalArgumentException("Invalid number of actors");
+        if (k == 0) return "No centers\n[]";
+        ShortestPathTree<String, Set<String>> tree = tree(params);
+        String key = game.componentOf(tree) + "|" + k;
+        String answer = ranked.get(key);
+        if (answer == null) {
+            answer = String.valueOf(k > 0 ? game.separations(tree, "top", k) : game.separations(tree, "bottom", -k));
+            if (ranked.size() < MAX_RANKED) ranked.putIfAbsent(key, answer); //k comes from clients, so don't keep every one
+        }
+        return answer;
+    }
+
+    /** the path tree of the request's center (shared through the game's cache) */
+    private ShortestPathTree<String, Set<String>> tree(Map<String, String> params) {
+        String center = params.getOrDefault("center", defaultCenter);
+        if (!game.graph().hasVertex(center)) throw new IllegalArgumentException(center + " does not exist.");
+        return game.pathTree(center);
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) throw new IllegalArgumentException("missing parameter " + name);
+        return value;
+    }
+
+    private static int number(Map<String, String> params, String name) {
+        String value = required(params, name);
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number, not " + value);
+        }
+    }
+
+    /** decodes a url query string into its parameters */
+    private static Map<String, String> params(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * one virtual thread per request where the jvm supports it, looked up reflectively so this still builds and runs
+     * on older jvms, where it falls back to a fixed pool sized to the concurrency limit
+     */
+    private static ExecutorService requestExecutor(int maxConcurrent) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxConcurrent);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+
+/**
+ * Breadth first search over the dense vertex ids of a CsrGraph
+ * The parent, distance and queue arrays are allocated once and reused by every search,
+ * so a search allocates nothing beyond the tree view it returns
+ * Not thread safe; give each thread its own engine
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class BfsEngine<V,E> {
+	public static final double DEFAULT_ALPHA = 14, DEFAULT_BETA = 24;	// Beamer's direction switch thresholds
+	private static final Metrics.Counter SEARCHES = Metrics.counter("bfs.searches");
+	private static final Metrics.Counter VISITED = Metrics.counter("bfs.vertices");
+	private static final Metrics.Counter SCANNED = Metrics.counter("bfs.edges");
+	private static final Metrics.Histogram TIME = Metrics.timer("bfs.time");
+	private final CsrGraph<V,E> graph;
+	private final int[] parent;	// id -> parent id, -1 if root/unreached
+	private final int[] dist;		// id -> distance from source, -1 if unreached
+	private final int[] queue;	// every vertex is enqueued at most once, so the queue never wraps and doubles as the visit order
+	private final int[] levels;	// levels[d] = position in queue of the first vertex at distance d
+	private int reached;			// vertices reached by the last search
+	private double alpha, beta;	// direction switch thresholds; alpha 0 means always top-down
+	private long[] frontierBits;	// current level as a bitmap, for bottom-up steps (all zero between levels)
+	private int bottomUpLevels;	// levels of the last search expanded bottom-up
+
+	public BfsEngine(CsrGraph<V,E> graph) {
+		this.graph = graph;
+		int n = graph.numVertices();
+		parent = new int[n];
+		dist = new int[n];
+		queue = new int[n];
+		levels = new int[n + 1];
+		Arrays.fill(parent, -1);
+		Arrays.fill(dist, -1);
+	}
+
+	/** The graph this engine searches */
+	public CsrGraph<V,E> graph() {
+		return graph;
+	}
+
+	/**
+	 * bfs from source, following in edges like BaconGraph.bfs
+	 * @param source the chosen center of the universe or root of the path tree
+	 * @return shortest path tree view backed by this engine's arrays (valid until the next search)
+	 */
+	public ShortestPathTree<V,E> bfs(V source) {
+		int s = graph.indexOf(source);
+		if (s < 0) throw new IllegalArgumentException(source + " is not in the graph");
+		return bfs(s);
+	}
+
+	/**
+	 * Turns on direction-optimizing search (Beamer et al.): a level is expanded bottom-up, with every unreached vertex
+	 * looking for a parent in a bitmap of the frontier, once the frontier's edges outnumber the unexplored edges / alpha,
+	 * and top-down again once the frontier has fewer than n / beta vertices
+	 * Distances, level offsets and level sizes are the same either way, but not everything else: a bottom-up level is
+	 * appended in vertex id order rather than discovery order, so the bfs order within that level (and anything listed
+	 * from it, like vertices(low, high)) can differ from a top-down search; and where a vertex has several parents one
+	 * level up, bottom-up keeps the first in its out edge list (the smallest id, since built rows are sorted), so
+	 * parents can differ too
+	 * @param alpha top-down to bottom-up threshold (Beamer suggests 14); 0 turns direction optimization off
+	 * @param beta bottom-up to top-down threshold (Beamer suggests 24)
+	 */
+	public void directionOptimizing(double alpha, double beta) {
+		if (alpha < 0 || beta <= 0) throw new IllegalArgumentException("thresholds must be positive");
+		this.alpha = alpha;
+		this.beta = beta;
+		if (alpha > 0 && frontierBits == null) frontierBits = new long[(graph.numVertices() + 63) >>> 6];
+	}
+
+	/** How many levels of the last search were expanded bottom-up */
+	public int bottomUpLevels() {
+		return bottomUpLevels;
+	}
+
+	/**
+	 * bfs from the vertex with id source
+	 * @return shortest path tree view backed by this engine's arrays (valid until the next search)
+	 */
+	public ShortestPathTree<V,E> bfs(int source) {
+		long start = System.nanoTime();
+		reset();
+		int[] offsets = graph.inOffsets(), targets = graph.inTargets();
+		int[] outOffsets = graph.outOffsets(), outTargets = graph.outTargets();
+		int n = graph.numVertices();
+		int head = 0, tail = 0, depth = 0;
+		long total = 0; //sum of distances, counted as vertices are discovered
+		long scanned = 0; //edges looked at, for the metrics
+		long frontierEdges = offsets[source + 1] - offsets[source]; //edges the next top-down step would scan
+		long unexplored = outTargets.length - (outOffsets[source + 1] - outOffsets[source]); //edges out of unreached vertices
+		boolean bottomUp = false;
+		bottomUpLevels = 0;
+		levels[0] = 0;
+		dist[source] = 0;
+		queue[tail++] = source; //enqueue start vertex
+		while (head < tail) { //one level per pass
+			int levelEnd = tail, du = depth + 1;
+			if (alpha > 0) { //pick this level's direction
+				if (!bottomUp && frontierEdges > unexplored / alpha) bottomUp = true;
+				else if (bottomUp && levelEnd - head < n / beta) bottomUp = false;
+			}
+			frontierEdges = 0;
+			if (bottomUp) {
+				bottomUpLevels++;
+				for (int i = head; i < levelEnd; i++) frontierBits[queue[i] >>> 6] |= 1L << queue[i];
+				for (int v = 0; v < n; v++) { //every unreached vertex looks for a parent in the frontier
+					if (dist[v] >= 0) continue;
+					for (int slot = outOffsets[v]; slot < outOffsets[v + 1]; slot++) {
+						int u = outTargets[slot];
+						if ((frontierBits[u >>> 6] & (1L << u)) != 0) {
+							scanned += slot - outOffsets[v]; //the rest are counted below
+							dist[v] = du;
+							total += du;
+							parent[v] = u;
+							queue[tail++] = v;
+							frontierEdges += offsets[v + 1] - offsets[v];
+							unexplored -= outOffsets[v + 1] - outOffsets[v];
+							break;
+						}
+					}
+					scanned += dist[v] < 0 ? outOffsets[v + 1] - outOffsets[v] : 1;
+				}
+				for (int i = head; i < levelEnd; i++) frontierBits[queue[i] >>> 6] = 0; //leave the bitmap empty for the next level
+			}
+			else {
+				for (int i = head; i < levelEnd; i++) {
+					int u = queue[i]; //dequeue
+					scanned += offsets[u + 1] - offsets[u];
+					for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) { //loop over in neighbors
+						int v = targets[slot];
+						if (dist[v] < 0) { //not visited yet, so discovered from u
+							dist[v] = du;
+							total += du;
+							parent[v] = u;
+							queue[tail++] = v;
+							frontierEdges += offsets[v + 1] - offsets[v];
+							unexplored -= outOffsets[v + 1] - outOffsets[v];
+						}
+					}
+				}
+			}
+			head = levelEnd;
+			if (tail > levelEnd) { //the queue is in distance order, so levels are contiguous
+				depth = du;
+				levels[du] = levelEnd;
+			}
+		}
+		reached = tail;
+		levels[depth + 1] = tail;
+		int[] histogram = new int[depth + 1];
+		for (int d = 0; d <= depth; d++) histogram[d] = levels[d + 1] - levels[d];
+		SeparationStats stats = new SeparationStats(source, histogram, total, reached);
+		SEARCHES.increment();
+		VISITED.add(reached);
+		SCANNED.add(scanned);
+		TIME.recordSince(start);
+		return new ShortestPathTree<V,E>(graph, source, parent, dist, queue, reached, levels, stats);
+	}
+
+	/** Clears the entries touched by the last search (only those, so the cost is proportional to what was reached) */
+	private void reset() {
+		for (int i = 0; i < reached; i++) {
+			int v = queue[i];
+			dist[v] = -1;
+			parent[v] = -1;
+		}
+		reached = 0;
+	}
+}
@@ -0,0 +1,139 @@
+import java.util.*;
+
+/**
+ * Point-to-point shortest path queries on a CsrGraph by bidirectional breadth first search
+ * Grows one frontier from each endpoint, always expanding a whole level of the smaller one, and stops
+ * at the level where they meet, so a query only touches the neighborhoods of the two endpoints
+ * Visited marks are stamped with a query number, so nothing is cleared between queries
+ * Not thread safe; give each thread its own instance
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class BidirectionalBfs<V,E> {
+	private static final Metrics.Counter SEARCHES = Metrics.counter("pair.searches");
+	private static final Metrics.Counter VISITED = Metrics.counter("pair.vertices");
+	private static final Metrics.Counter SCANNED = Metrics.counter("pair.edges");
+	private static final Metrics.Histogram TIME = Metrics.timer("pair.time");
+	private final CsrGraph<V,E> graph;
+	private final int[] seenFrom, seenTo;		// query stamp when reached from each side
+	private final int[] parentFrom, parentTo;	// next vertex back toward each endpoint
+	private final int[] distFrom, distTo;		// distance from each endpoint
+	private final int[] queueFrom, queueTo;
+	private int stamp;
+
+	public BidirectionalBfs(CsrGraph<V,E> graph) {
+		this.graph = graph;
+		int n = graph.numVertices();
+		seenFrom = new int[n];
+		seenTo = new int[n];
+		parentFrom = new int[n];
+		parentTo = new int[n];
+		distFrom = new int[n];
+		distTo = new int[n];
+		queueFrom = new int[n];
+		queueTo = new int[n];
+	}
+
+	/**
+	 * A shortest path between two vertices
+	 * @param from start of the path
+	 * @param to end of the path
+	 * @return vertices from "from" to "to" (following out edges), null if there is no path or either isn't in the graph
+	 */
+	public List<V> path(V from, V to) {
+		int s = graph.indexOf(from), t = graph.indexOf(to);
+		if (s < 0 || t < 0) return null;
+		int[] ids = path(s, t);
+		if (ids == null) return null;
+		List<V> path = new ArrayList<V>(ids.length);
+		for (int id : ids) path.add(graph.vertex(id));
+		return path;
+	}
+
+	/**
+	 * Length of a shortest path between two vertices
+	 * @return number of edges on the path, -1 if there is none
+	 */
+	public int distance(int s, int t) {
+		int[] ids = path(s, t);
+		return ids == null ? -1 : ids.length - 1;
+	}
+
+	/**
+	 * A shortest path between the vertices with ids s and t
+	 * @return ids from s to t, null if there is no path
+	 */
+	public int[] path(int s, int t) {
+		if (s == t) return new int[] { s };
+		if (++stamp == 0) { // wrapped around, so old stamps could collide; clear them once
+			Arrays.fill(seenFrom, 0);
+			Arrays.fill(seenTo, 0);
+			stamp = 1;
+		}
+		seenFrom[s] = stamp;
+		distFrom[s] = 0;
+		parentFrom[s] = -1;
+		queueFrom[0] = s;
+		seenTo[t] = stamp;
+		distTo[t] = 0;
+		parentTo[t] = -1;
+		queueTo[0] = t;
+		long started = System.nanoTime(), scanned = 0;
+		int headFrom = 0, tailFrom = 1, headTo = 0, tailTo = 1;
+		int best = Integer.MAX_VALUE, meet = -1;
+
+		while (meet < 0 && headFrom < tailFrom && headTo < tailTo) {
+			if (tailFrom - headFrom <= tailTo - headTo) { // expand one level forward, along out edges
+				int[] offsets = graph.outOffsets(), targets = graph.outTargets();
+				for (int end = tailFrom; headFrom < end; headFrom++) {
+					int u = queueFrom[headFrom];
+					scanned += offsets[u + 1] - offsets[u];
+					for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+						int v = targets[slot];
+						if (seenFrom[v] == stamp) continue;
+						seenFrom[v] = stamp;
+						distFrom[v] = distFrom[u] + 1;
+						parentFrom[v] = u;
+						queueFrom[tailFrom++] = v;
+						if (seenTo[v] == stamp && distFrom[v] + distTo[v] < best) { // frontiers met; finish the level for the best meeting
+							best = distFrom[v] + distTo[v];
+							meet = v;
+						}
+					}
+				}
+			}
+			else { // expand one level backward, along in edges
+				int[] offsets = graph.inOffsets(), targets = graph.inTargets();
+				for (int end = tailTo; headTo < end; headTo++) {
+					int u = queueTo[headTo];
+					scanned += offsets[u + 1] - offsets[u];
+					for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+						int v = targets[slot];
+						if (seenTo[v] == stamp) continue;
+						seenTo[v] = stamp;
+						distTo[v] = distTo[u] + 1;
+						parentTo[v] = u;
+						queueTo[tailTo++] = v;
+						if (seenFrom[v] == stamp && distFrom[v] + distTo[v] < best) {
+							best = distFrom[v] + distTo[v];
+							meet = v;
+						}
+					}
+				}
+			}
+		}
+		SEARCHES.increment();
+		VISITED.add(tailFrom + tailTo);
+		SCANNED.add(scanned);
+		TIME.recordSince(started);
+		if (meet < 0) return null;
+
+		int[] path = new int[best + 1];
+		int i = distFrom[meet];
+		for (int v = meet; v >= 0; v = parentFrom[v]) path[i--] = v; // meet back to s, filled right to left
+		i = distFrom[meet];
+		for (int v = meet; v >= 0; v = parentTo[v]) path[i++] = v; // meet on to t
+		return path;
+	}
+}
@@ -0,0 +1,258 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ranks vertices of a CsrGraph by average separation (closeness), running bit-parallel bfs
+ * batches (MultiSourceBfs) with the batches split across a fork-join pool
+ * Each worker thread keeps its own MultiSourceBfs scratch, and each task keeps only a bounded heap
+ * of the k best (or worst) sources, so ranking a few centers never materializes every score
+ * Given a ComponentIndex, sources are grouped by component and each batch only scans its own component,
+ * so bfs from a small component never walks the giant one
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class ClosenessEngine<V,E> {
+	private final CsrGraph<V,E> graph;
+	private final ForkJoinPool pool;
+	private final ThreadLocal<MultiSourceBfs<V,E>> scratch;	// per worker bfs buffers
+	private final int batch;		// sources per leaf task, one multi-source bfs run
+	private final ComponentIndex components;	// null if not known
+
+	public ClosenessEngine(CsrGraph<V,E> graph) {
+		this(graph, null, ForkJoinPool.commonPool());
+	}
+
+	public ClosenessEngine(CsrGraph<V,E> graph, ComponentIndex components) {
+		this(graph, components, ForkJoinPool.commonPool());
+	}
+
+	public ClosenessEngine(CsrGraph<V,E> graph, ComponentIndex components, ForkJoinPool pool) {
+		this.graph = graph;
+		this.components = components;
+		this.pool = pool;
+		this.scratch = ThreadLocal.withInitial(() -> {
+			MultiSourceBfs<V,E> msbfs = new MultiSourceBfs<V,E>(graph);
+			msbfs.directionOptimizing(BfsEngine.DEFAULT_ALPHA, BfsEngine.DEFAULT_BETA); // same totals, fewer edge scans on big frontiers
+			return msbfs;
+		});
+		this.batch = 64;
+	}
+
+	/**
+	 * The k sources with the least average separation ("top" centers), best first
+	 * @param sources ids of the vertices to rank
+	 * @param k how many to keep
+	 */
+	public List<V> top(int[] sources, int k) {
+		return rank(sources, k, false);
+	}
+
+	/**
+	 * The k sources with the greatest average separation ("bottom" centers), worst first
+	 * @param sources ids of the vertices to rank
+	 * @param k how many to keep
+	 */
+	public List<V> bottom(int[] sources, int k) {
+		return rank(sources, k, true);
+	}
+
+	/**
+	 * Average separation of every source, computed in parallel
+	 * @param sources ids of the vertices to score
+	 * @return averages, parallel to sources
+	 */
+	public double[] averages(int[] sources) {
+		int[] order = byComponent(sources);
+		int[] grouped = new int[sources.length];
+		for (int i = 0; i < sources.length; i++) grouped[i] = sources[order[i]];
+		double[] groupedAverages = new double[sources.length];
+		pool.invoke(new ScoreTask(grouped, 0, grouped.length, groupedAverages));
+		double[] averages = new double[sources.length];
+		for (int i = 0; i < sources.length; i++) averages[order[i]] = groupedAverages[i]; //back to the caller's order
+		return averages;
+	}
+
+	private List<V> rank(int[] sources, int k, boolean worstFirst) {
+		List<V> ranked = new ArrayList<V>();
+		if (k <= 0 || sources.length == 0) return ranked;
+		int[] order = byComponent(sources);
+		int[] grouped = new int[sources.length];
+		for (int i = 0; i < sources.length; i++) grouped[i] = sources[order[i]];
+		TopK best = pool.invoke(new RankTask(grouped, 0, grouped.length, Math.min(k, sources.length), worstFirst));
+		for (int id : best.drain()) ranked.add(graph.vertex(id));
+		return ranked;
+	}
+
+	/** Positions of sources, stably sorted by component so batches rarely straddle two components */
+	private int[] byComponent(int[] sources) {
+		Integer[] order = new Integer[sources.length];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		if (components != null) Arrays.sort(order, Comparator.comparingInt(i -> components.component(sources[i])));
+		int[] positions = new int[order.length];
+		for (int i = 0; i < order.length; i++) positions[i] = order[i];
+		return positions;
+	}
+
+	/** Vertices a batch needs to scan: its component's members if all its sources share one, else null (everything) */
+	private int[] scope(int[] sources, int from, int to) {
+		if (components == null) return null;
+		int c = components.component(sources[from]);
+		for (int i = from + 1; i < to; i++) {
+			if (components.component(sources[i]) != c) return null;
+		}
+		return components.size(c) == graph.numVertices() ? null : components.members(c);
+	}
+
+	/**
+	 * Average separations of sources[from..to) (at most one batch) into averages[at..at+to-from), using this thread's scratch
+	 */
+	private void averages(int[] sources, int from, int to, double[] averages, int at) {
+		long[] totals = new long[to - from];
+		int[] reached = new int[to - from];
+		scratch.get().run(sources, from, to, totals, reached, scope(sources, from, to));
+		for (int i = 0; i < to - from; i++) averages[at + i] = (double) totals[i] / (double) reached[i];
+	}
+
+	/** Where to split sources[from..to) so both halves are whole batches, -1 if it is a single batch */
+	private int split(int from, int to) {
+		int batches = (to - from + batch - 1) / batch;
+		return batches <= 1 ? -1 : from + (batches / 2) * batch;
+	}
+
+	/**
+	 * Scores sources[from..to) into averages, splitting in half until the range is small
+	 */
+	private class ScoreTask extends RecursiveTask<Void> {
+		private static final long serialVersionUID = 1L;
+		private final int[] sources;
+		private final int from, to;
+		private final double[] averages;
+
+		ScoreTask(int[] sources, int from, int to, double[] averages) {
+			this.sources = sources;
+			this.from = from;
+			this.to = to;
+			this.averages = averages;
+		}
+
+		protected Void compute() {
+			int mid = split(from, to);
+			if (mid < 0) {
+				ClosenessEngine.this.averages(sources, from, to, averages, from);
+				return null;
+			}
+			ScoreTask left = new ScoreTask(sources, from, mid, averages);
+			left.fork();
+			new ScoreTask(sources, mid, to, averages).compute();
+			left.join();
+			return null;
+		}
+	}
+
+	/**
+	 * Keeps the k best sources of sources[from..to), merging the halves' heaps on the way back up
+	 */
+	private class RankTask extends RecursiveTask<TopK> {
+		private static final long serialVersionUID = 1L;
+		private final int[] sources;
+		private final int from, to, k;
+		private final boolean worstFirst;
+
+		RankTask(int[] sources, int from, int to, int k, boolean worstFirst) {
+			this.sources = sources;
+			this.from = from;
+			this.to = to;
+			this.k = k;
+			this.worstFirst = worstFirst;
+		}
+
+		protected TopK compute() {
+			int mid = split(from, to);
+			if (mid < 0) {
+				double[] averages = new double[to - from]; // just this batch, not every source
+				ClosenessEngine.this.averages(sources, from, to, averages, 0);
+				TopK heap = new TopK(k);
+				for (int i = from; i < to; i++) {
+					heap.offer(worstFirst ? -averages[i - from] : averages[i - from], sources[i]);
+				}
+				return heap;
+			}
+			RankTask left = new RankTask(sources, from, mid, k, worstFirst);
+			left.fork();
+			TopK heap = new RankTask(sources, mid, to, k, worstFirst).compute();
+			heap.addAll(left.join());
+			return heap;
+		}
+	}
+
+	/**
+	 * Bounded heap of the k (score, id) pairs with the smallest scores, ties going to the smaller id
+	 * Stored as a binary max-heap on parallel arrays, so the root is the entry to evict next
+	 */
+	static class TopK {
+		private final double[] scores;
+		private final int[] ids;
+		private int size;
+
+		TopK(int k) {
+			scores = new double[k];
+			ids = new int[k];
+		}
+
+		/** Whether (s1, id1) ranks after (s2, id2) */
+		private static boolean after(double s1, int id1, double s2, int id2) {
+			int c = Double.compare(s1, s2);
+			return c > 0 || (c == 0 && id1 > id2);
+		}
+
+		void offer(double score, int id) {
+			if (size < scores.length) {
+				int i = size++;
+				while (i > 0) { //sift up
+					int p = (i - 1) / 2;
+					if (!after(score, id, scores[p], ids[p])) break;
+					scores[i] = scores[p];
+					ids[i] = ids[p];
+					i = p;
+				}
+				scores[i] = score;
+				ids[i] = id;
+			}
+			else if (size > 0 && after(scores[0], ids[0], score, id)) { //better than the worst kept, so replace the root
+				siftDown(score, id);
+			}
+		}
+
+		void addAll(TopK other) {
+			for (int i = 0; i < other.size; i++) offer(other.scores[i], other.ids[i]);
+		}
+
+		private void siftDown(double score, int id) {
+			int i = 0;
+			while (true) {
+				int c = 2 * i + 1;
+				if (c >= size) break;
+				if (c + 1 < size && after(scores[c + 1], ids[c + 1], scores[c], ids[c])) c++;
+				if (!after(scores[c], ids[c], score, id)) break;
+				scores[i] = scores[c];
+				ids[i] = ids[c];
+				i = c;
+			}
+			scores[i] = score;
+			ids[i] = id;
+		}
+
+		/** Empties the heap, returning its ids best first */
+		int[] drain() {
+			int[] ordered = new int[size];
+			while (size > 0) {
+				ordered[size - 1] = ids[0]; //root is the worst remaining
+				size--;
+				if (size > 0) siftDown(scores[size], ids[size]);
+			}
+			return ordered;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+import java.util.*;
+
+/**
+ * Shortest path tree kept in as little memory as possible, for holding many centers' trees at once
+ * Keeps only the parent of each vertex (an int) and its distance (a byte), about 5 bytes per vertex of the graph,
+ * plus one offset per level; the bfs order isn't kept, it is walked again from the root when asked for, going down
+ * through each vertex's children: its in neighbors in the base graph whose parent it is, or an optional child CSR
+ * Walking down visits children in the order a top-down bfs found them, so the order matches the tree it came
+ * from (for a tree built with direction-optimizing levels, vertices within a level may come out in another order)
+ * Distances of 254 or more don't fit a byte; those vertices store 254 and are counted up from their nearest
+ * ancestor that fits
+ * Immutable, so it can be shared between threads
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class CompactPathTree<V,E> extends ShortestPathTree<V,E> {
+	private static final int UNREACHED = 0xff, FAR = 0xfe;
+	private final byte[] shortDist;		// id -> distance from the root, FAR if 254 or more, UNREACHED if unreached
+	private final int[] childOffsets;	// children of id v are children[childOffsets[v] .. childOffsets[v+1]); null if not kept
+	private final int[] children;
+
+	/**
+	 * Compact copy of tree
+	 * @param childIndex also keep a child CSR (about 4 more bytes per vertex) so walking down doesn't rescan the graph
+	 */
+	CompactPathTree(ShortestPathTree<V,E> tree, boolean childIndex) {
+		super(tree.graph, tree.source, Arrays.copyOf(tree.parent, tree.graph.numVertices()), null, null, tree.reached,
+				Arrays.copyOf(tree.levels, tree.depth() + 2), tree.stats);
+		int n = graph.numVertices();
+		int[] order = tree.order != null ? tree.order : ((CompactPathTree<V,E>) tree).walk(0, tree.depth());
+		shortDist = new byte[n];
+		Arrays.fill(shortDist, (byte) UNREACHED);
+		for (int i = 0; i < reached; i++) {
+			int v = order[i];
+			shortDist[v] = (byte) Math.min(tree.distance(v), FAR);
+		}
+		if (!childIndex) {
+			childOffsets = null;
+			children = null;
+			return;
+		}
+		childOffsets = new int[n + 1];
+		for (int i = 1; i < reached; i++) childOffsets[parent[order[i]] + 1]++;
+		for (int v = 0; v < n; v++) childOffsets[v + 1] += childOffsets[v];
+		children = new int[Math.max(reached - 1, 0)];
+		int[] next = Arrays.copyOf(childOffsets, n);
+		for (int i = 1; i < reached; i++) { // bfs order, so each vertex's children stay in the order they were found
+			int v = order[i];
+			children[next[parent[v]]++] = v;
+		}
+	}
+
+	/** Whether walking down uses a child CSR rather than the base graph */
+	public boolean hasChildIndex() {
+		return children != null;
+	}
+
+	public boolean hasVertex(V v) {
+		int id = graph.indexOf(v);
+		return id >= 0 && shortDist[id] != (byte) UNREACHED;
+	}
+
+	public int distance(int v) {
+		int d = shortDist[v] & 0xff;
+		if (d == UNREACHED) return -1;
+		int up = 0;
+		for (; d == FAR; d = shortDist[v] & 0xff) { // too far for a byte; count up to an ancestor that fits
+			v = parent[v];
+			up++;
+		}
+		return d + up;
+	}
+
+	public int distance(V v) {
+		int id = graph.indexOf(v);
+		return id < 0 ? -1 : distance(id);
+	}
+
+	/**
+	 * Id of the i-th vertex in bfs order; walks the tree each call, so use vertices() to go through them all
+	 */
+	public int reachedId(int i) {
+		if (i < 0 || i >= reached) throw new IndexOutOfBoundsException("reached vertex " + i + " of " + reached);
+		return walk(0, depth())[i];
+	}
+
+	/** The reached vertices in bfs order, walked from the root (a new list each call) */
+	public List<V> vertices() {
+		return names(walk(0, depth()));
+	}
+
+	/** The reached vertices with distance in [low, high], nearest first; only walks down as far as high */
+	public List<V> vertices(int low, int high) {
+		return names(walk(Math.max(low, 0), Math.min(high, depth())));
+	}
+
+	/** The children of v in the tree (the vertices whose parent it is), in the order bfs found them */
+	public List<V> children(V v) {
+		int id = graph.indexOf(v);
+		if (id < 0 || shortDist[id] == (byte) UNREACHED) return Collections.<V>emptyList();
+		int[] found = new int[childOffsets != null ? childOffsets[id + 1] - childOffsets[id] : graph.inOffsets()[id + 1] - graph.inOffsets()[id]];
+		return names(Arrays.copyOf(found, childrenInto(id, found, 0)));
+	}
+
+	/** Copies the children of u into out from position at, returning the position after them */
+	private int childrenInto(int u, int[] out, int at) {
+		if (childOffsets != null) {
+			int count = childOffsets[u + 1] - childOffsets[u];
+			System.arraycopy(children, childOffsets[u], out, at, count);
+			return at + count;
+		}
+		int[] offsets = graph.inOffsets(), targets = graph.inTargets();
+		for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) { // bfs went through u's in neighbors in this order
+			int v = targets[slot];
+			if (parent[v] == u) out[at++] = v;
+		}
+		return at;
+	}
+
+	/**
+	 * Ids at distance low through high in bfs order, found level by level from the root
+	 * (each level is its parents' children, parents in order)
+	 */
+	private int[] walk(int low, int high) {
+		if (low > high) return new int[0];
+		int[] found = new int[levelStart(high + 1) - levelStart(low)];
+		int[] level = { source };
+		for (int d = 0; ; d++) {
+			if (d >= low) System.arraycopy(level, 0, found, levelStart(d) - levelStart(low), level.length);
+			if (d == high) return found;
+			int[] next = new int[levelSize(d + 1)];
+			int at = 0;
+			for (int u : level) at = childrenInto(u, next, at);
+			level = next;
+		}
+	}
+
+	private List<V> names(int[] ids) {
+		List<V> names = new ArrayList<V>(ids.length);
+		for (int id : ids) names.add(graph.vertex(id));
+		return names;
+	}
+
+	public long retainedBytes() {
+		long bytes = 4L * parent.length + shortDist.length + 4L * levels.length + 4L * (depth() + 1) + 64;
+		if (childOffsets != null) bytes += 4L * childOffsets.length + 4L * children.length;
+		return bytes;
+	}
+
+	/**
+	 * A full ShortestPathTree with the bfs order (walked once, here) and int distances, so range queries on it are
+	 * slices again rather than walks; about twice the memory
+	 */
+	public ShortestPathTree<V,E> expand() {
+		int[] order = walk(0, depth());
+		int[] dist = new int[graph.numVertices()];
+		Arrays.fill(dist, -1);
+		for (int d = 0, i = 0; d <= depth(); d++) {
+			for (; i < levelStart(d + 1); i++) dist[order[i]] = d;
+		}
+		return new ShortestPathTree<V,E>(graph, source, parent, dist, order, reached, levels, stats); // parent and levels are never written, so they can be shared
+	}
+
+	/** Already immutable, so the tree itself */
+	public ShortestPathTree<V,E> copy() {
+		return this;
+	}
+
+	public CompactPathTree<V,E> compact(boolean childIndex) {
+		return childIndex == hasChildIndex() ? this : new CompactPathTree<V,E>(this, childIndex);
+	}
+}
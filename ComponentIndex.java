@@ -0,0 +1,193 @@
+import java.util.Arrays;
+
+/**
+ * Connected components of a CsrGraph, labeled once so reachability checks are an array lookup
+ * Edges are followed in both directions (weak components); for an undirected graph like the costar
+ * graph, two vertices are in the same component exactly when a bfs from one reaches the other
+ * Each component also keeps its size, its members, and a diameter estimate from a double sweep
+ * (bfs from any member, then bfs again from the farthest vertex found)
+ */
+public class ComponentIndex {
+	private final int[] component;		// vertex id -> component id
+	private final int[] memberOffsets;	// members of component c are members[memberOffsets[c] .. memberOffsets[c+1])
+	private final int[] members;
+	private final int[] diameterLow;		// component id -> diameter lower bound (eccentricity of the second sweep)
+	private final int[] diameterHigh;		// component id -> diameter upper bound (twice the first sweep's eccentricity)
+	private final int largest;			// id of the biggest component
+
+	/**
+	 * Indexes g given a component id for every vertex
+	 * Component ids must be 0..count-1
+	 */
+	private ComponentIndex(CsrGraph<?,?> g, int[] component, int count) {
+		this.component = component;
+		int n = component.length;
+		memberOffsets = new int[count + 1];
+		for (int v = 0; v < n; v++) memberOffsets[component[v] + 1]++;
+		for (int c = 0; c < count; c++) memberOffsets[c + 1] += memberOffsets[c];
+		members = new int[n];
+		int[] fill = Arrays.copyOf(memberOffsets, count);
+		for (int v = 0; v < n; v++) members[fill[component[v]]++] = v;
+
+		int big = 0;
+		for (int c = 0; c < count; c++) {
+			if (size(c) > size(big)) big = c;
+		}
+		largest = big;
+
+		diameterLow = new int[count];
+		diameterHigh = new int[count];
+		BfsEngine<?,?> engine = new BfsEngine<>(g);
+		engine.directionOptimizing(BfsEngine.DEFAULT_ALPHA, BfsEngine.DEFAULT_BETA); // sweeps only need distances
+		for (int c = 0; c < count; c++) {
+			if (size(c) == 1) continue; // a lone vertex has diameter 0
+			ShortestPathTree<?,?> first = engine.bfs(members[memberOffsets[c]]);
+			int far = first.reachedId(first.numVertices() - 1); // bfs order ends at a farthest vertex
+			int ecc = first.stats().eccentricity();
+			diameterLow[c] = engine.bfs(far).stats().eccentricity();
+			diameterHigh[c] = Math.min(2 * ecc, size(c) - 1);
+		}
+	}
+
+	/**
+	 * Labels the components of g with a bfs from each unlabeled vertex
+	 * @param g graph to label
+	 * @return component index of g
+	 */
+	public static ComponentIndex of(CsrGraph<?,?> g) {
+		int n = g.numVertices();
+		int[] component = new int[n];
+		Arrays.fill(component, -1);
+		int[] queue = new int[n];
+		int count = 0;
+		for (int s = 0; s < n; s++) {
+			if (component[s] >= 0) continue;
+			int head = 0, tail = 0;
+			component[s] = count;
+			queue[tail++] = s;
+			while (head < tail) {
+				int u = queue[head++];
+				tail = label(g.outOffsets(), g.outTargets(), u, count, component, queue, tail);
+				if (g.inTargets() != g.outTargets()) tail = label(g.inOffsets(), g.inTargets(), u, count, component, queue, tail);
+			}
+			count++;
+		}
+		return new ComponentIndex(g, component, count);
+	}
+
+	/**
+	 * Indexes g using components already found by union-find (e.g. while the graph was being built)
+	 * @param g graph whose vertex ids match the union-find's elements
+	 * @param sets union-find over g's vertex ids
+	 * @return component index of g
+	 */
+	public static ComponentIndex of(CsrGraph<?,?> g, UnionFind sets) {
+		int n = g.numVertices();
+		int[] rootLabel = new int[n];
+		Arrays.fill(rootLabel, -1);
+		int[] component = new int[n];
+		int count = 0;
+		for (int v = 0; v < n; v++) { // number the components in order of their first vertex
+			int root = sets.find(v);
+			if (rootLabel[root] < 0) rootLabel[root] = count++;
+			component[v] = rootLabel[root];
+		}
+		return new ComponentIndex(g, component, count);
+	}
+
+	/** Labels u's unlabeled neighbors in one direction, returning the new queue tail */
+	private static int label(int[] offsets, int[] targets, int u, int c, int[] component, int[] queue, int tail) {
+		for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+			int v = targets[slot];
+			if (component[v] < 0) {
+				component[v] = c;
+				queue[tail++] = v;
+			}
+		}
+		return tail;
+	}
+
+	/** How many components there are */
+	public int numComponents() {
+		return memberOffsets.length - 1;
+	}
+
+	/** Component id of the vertex with id v */
+	public int component(int v) {
+		return component[v];
+	}
+
+	/** Number of vertices in component c */
+	public int size(int c) {
+		return memberOffsets[c + 1] - memberOffsets[c];
+	}
+
+	/** Ids of the vertices in component c, in increasing order */
+	public int[] members(int c) {
+		return Arrays.copyOfRange(members, memberOffsets[c], memberOffsets[c + 1]);
+	}
+
+	/** Lower bound on the diameter of component c (exact for trees, and usually for small-world graphs) */
+	public int diameter(int c) {
+		return diameterLow[c];
+	}
+
+	/** Upper bound on the diameter of component c */
+	public int diameterUpperBound(int c) {
+		return diameterHigh[c];
+	}
+
+	/** Id of the component with the most vertices */
+	public int largestComponent() {
+		return largest;
+	}
+
+	/** Whether the vertices with ids u and v are in the same component */
+	public boolean connected(int u, int v) {
+		return component[u] == component[v];
+	}
+
+	public String toString() {
+		return numComponents() + " components, largest has " + size(largest) + " vertices and diameter " + diameter(largest);
+	}
+
+	/**
+	 * Union-find (disjoint sets) over ints 0..n-1, with union by size and path halving
+	 */
+	public static class UnionFind {
+		private final int[] parent;
+		private final int[] size;
+
+		public UnionFind(int n) {
+			parent = new int[n];
+			size = new int[n];
+			for (int i = 0; i < n; i++) {
+				parent[i] = i;
+				size[i] = 1;
+			}
+		}
+
+		/** Representative of x's set */
+		public int find(int x) {
+			while (parent[x] != x) {
+				parent[x] = parent[parent[x]]; // path halving
+				x = parent[x];
+			}
+			return x;
+		}
+
+		/** Merges the sets of a and b */
+		public void union(int a, int b) {
+			a = find(a);
+			b = find(b);
+			if (a == b) return;
+			if (size[a] < size[b]) {
+				int t = a;
+				a = b;
+				b = t;
+			}
+			parent[b] = a;
+			size[a] += size[b];
+		}
+	}
+}
@@ -0,0 +1,291 @@
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable compressed sparse row (CSR) implementation of the Graph interface
+ * Vertices are numbered 0..n-1; the out edges of vertex i are targets[offsets[i]] .. targets[offsets[i+1]-1],
+ * sorted by target id, with each edge's label found through the parallel label index array
+ * Built once by freezing another graph (usually an AdjMapGraph) after it has been filled in
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class CsrGraph<V,E> implements Graph<V,E> {
+	protected final List<V> vertexList;			// id -> vertex
+	protected final Map<V, Integer> ids;		// vertex -> id
+	protected final int[] outOffsets, outTargets, outLabels;	// out edges of i are in [outOffsets[i], outOffsets[i+1])
+	protected final int[] inOffsets, inTargets, inLabels;		// same for in edges; shared with out arrays when the graph is symmetric
+	protected final IntFunction<E> labels;		// label index -> label
+
+	/**
+	 * Builds a graph whose in edges mirror its out edges (e.g. an undirected costar graph)
+	 * @param vertices vertices in id order
+	 * @param offsets row offsets, length vertices.size() + 1
+	 * @param targets target ids of each edge, sorted within each row
+	 * @param labelIndex label index of each edge, parallel to targets
+	 * @param labels looks up a label by its label index
+	 */
+	public CsrGraph(List<V> vertices, int[] offsets, int[] targets, int[] labelIndex, IntFunction<E> labels) {
+		this(vertices, offsets, targets, labelIndex, offsets, targets, labelIndex, labels);
+	}
+
+	/**
+	 * Builds a graph with separate out and in edge arrays
+	 */
+	public CsrGraph(List<V> vertices, int[] outOffsets, int[] outTargets, int[] outLabels,
+					int[] inOffsets, int[] inTargets, int[] inLabels, IntFunction<E> labels) {
+		this.vertexList = Collections.unmodifiableList(new ArrayList<V>(vertices));
+		this.ids = new HashMap<V, Integer>();
+		for (int i = 0; i < vertexList.size(); i++) ids.put(vertexList.get(i), i);
+		this.outOffsets = outOffsets;
+		this.outTargets = outTargets;
+		this.outLabels = outLabels;
+		this.inOffsets = inOffsets;
+		this.inTargets = inTargets;
+		this.inLabels = inLabels;
+		this.labels = labels;
+	}
+
+	/**
+	 * Converts a graph into an immutable CSR graph
+	 * Vertex ids follow the iteration order of g.vertices(); labels shared between edges
+	 * (as insertUndirected does) are stored once
+	 * @param g graph to freeze
+	 * @return CSR copy of g
+	 */
+	public static <V,E> CsrGraph<V,E> freeze(Graph<V,E> g) {
+		List<V> vertices = new ArrayList<V>(g.numVertices());
+		Map<V, Integer> ids = new HashMap<V, Integer>();
+		for (V v : g.vertices()) {
+			ids.put(v, vertices.size());
+			vertices.add(v);
+		}
+		List<E> labelTable = new ArrayList<E>();
+		Map<E, Integer> labelIds = new IdentityHashMap<E, Integer>(); // dedupe by identity, so the two directions of an undirected edge share a label
+
+		int n = vertices.size();
+		int[] outOffsets = new int[n + 1], inOffsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			outOffsets[i + 1] = outOffsets[i] + g.outDegree(vertices.get(i));
+			inOffsets[i + 1] = inOffsets[i] + g.inDegree(vertices.get(i));
+		}
+		int[] outTargets = new int[outOffsets[n]], outLabels = new int[outOffsets[n]];
+		int[] inTargets = new int[inOffsets[n]], inLabels = new int[inOffsets[n]];
+		for (int i = 0; i < n; i++) {
+			V u = vertices.get(i);
+			int pos = outOffsets[i];
+			for (V v : g.outNeighbors(u)) {
+				outTargets[pos] = ids.get(v);
+				outLabels[pos++] = labelId(g.getLabel(u, v), labelTable, labelIds);
+			}
+			sortRow(outTargets, outLabels, outOffsets[i], outOffsets[i + 1]);
+			pos = inOffsets[i];
+			for (V v : g.inNeighbors(u)) {
+				inTargets[pos] = ids.get(v);
+				inLabels[pos++] = labelId(g.getLabel(v, u), labelTable, labelIds);
+			}
+			sortRow(inTargets, inLabels, inOffsets[i], inOffsets[i + 1]);
+		}
+
+		IntFunction<E> labels = labelTable::get;
+		if (Arrays.equals(outOffsets, inOffsets) && Arrays.equals(outTargets, inTargets) && Arrays.equals(outLabels, inLabels)) {
+			return new CsrGraph<V,E>(vertices, outOffsets, outTargets, outLabels, labels); // symmetric, so only keep one copy
+		}
+		return new CsrGraph<V,E>(vertices, outOffsets, outTargets, outLabels, inOffsets, inTargets, inLabels, labels);
+	}
+
+	/** Index of label e in the table, adding it if it hasn't been seen */
+	private static <E> int labelId(E e, List<E> labelTable, Map<E, Integer> labelIds) {
+		Integer id = labelIds.get(e);
+		if (id == null) {
+			id = labelTable.size();
+			labelIds.put(e, id);
+			labelTable.add(e);
+		}
+		return id;
+	}
+
+	/** Sorts targets[from..to) by target id, keeping the parallel label indices lined up */
+	private static void sortRow(int[] targets, int[] labelIndex, int from, int to) {
+		long[] packed = new long[to - from];
+		for (int i = from; i < to; i++) packed[i - from] = ((long) targets[i] << 32) | (labelIndex[i] & 0xffffffffL);
+		Arrays.sort(packed);
+		for (int i = from; i < to; i++) {
+			targets[i] = (int) (packed[i - from] >>> 32);
+			labelIndex[i] = (int) packed[i - from];
+		}
+	}
+
+	/** The id of v, or -1 if v is not in the graph */
+	public int indexOf(V v) {
+		Integer id = ids.get(v);
+		return id == null ? -1 : id;
+	}
+
+	/** The vertex with id i */
+	public V vertex(int i) {
+		return vertexList.get(i);
+	}
+
+	/** Row offsets of the out edges (shared, don't modify) */
+	public int[] outOffsets() {
+		return outOffsets;
+	}
+
+	/** Target ids of the out edges (shared, don't modify) */
+	public int[] outTargets() {
+		return outTargets;
+	}
+
+	/** Row offsets of the in edges (shared, don't modify) */
+	public int[] inOffsets() {
+		return inOffsets;
+	}
+
+	/** Source ids of the in edges (shared, don't modify) */
+	public int[] inTargets() {
+		return inTargets;
+	}
+
+	/** Label indices of the out edges, parallel to outTargets (shared, don't modify) */
+	public int[] outLabelIndex() {
+		return outLabels;
+	}
+
+	/** Label indices of the in edges, parallel to inTargets (shared, don't modify) */
+	public int[] inLabelIndex() {
+		return inLabels;
+	}
+
+	/** The label with the given label index */
+	public E label(int labelIndex) {
+		return labels.apply(labelIndex);
+	}
+
+	/** The label of the out edge stored at position slot of outTargets */
+	public E outLabelAt(int slot) {
+		return labels.apply(outLabels[slot]);
+	}
+
+	/** The label of the in edge stored at position slot of inTargets */
+	public E inLabelAt(int slot) {
+		return labels.apply(inLabels[slot]);
+	}
+
+	/** Position of the edge from u to v in outTargets, or -1 if there is none */
+	public int outSlot(int u, int v) {
+		int slot = Arrays.binarySearch(outTargets, outOffsets[u], outOffsets[u + 1], v);
+		return slot < 0 ? -1 : slot;
+	}
+
+	public int numVertices() {
+		return vertexList.size();
+	}
+
+	public int numEdges() {
+		return outTargets.length;
+	}
+
+	public Iterable<V> vertices() {
+		return vertexList;
+	}
+
+	public boolean hasVertex(V v) {
+		return ids.containsKey(v);
+	}
+
+	public int outDegree(V v) {
+		int u = ids.get(v);
+		return outOffsets[u + 1] - outOffsets[u];
+	}
+
+	public int inDegree(V v) {
+		int u = ids.get(v);
+		return inOffsets[u + 1] - inOffsets[u];
+	}
+
+	public Iterable<V> outNeighbors(V v) {
+		int u = ids.get(v);
+		return new Row(outTargets, outOffsets[u], outOffsets[u + 1]);
+	}
+
+	public Iterable<V> inNeighbors(V v) {
+		int u = ids.get(v);
+		return new Row(inTargets, inOffsets[u], inOffsets[u + 1]);
+	}
+
+	public boolean hasEdge(V u, V v) {
+		Integer w = ids.get(v);
+		return w != null && outSlot(ids.get(u), w) >= 0;
+	}
+
+	public E getLabel(V u, V v) {
+		Integer w = ids.get(v);
+		if (w == null) return null;
+		int slot = outSlot(ids.get(u), w);
+		return slot < 0 ? null : outLabelAt(slot);
+	}
+
+	public void insertVertex(V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void insertDirected(V u, V v, E e) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void insertUndirected(V u, V v, E e) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void removeVertex(V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void removeDirected(V u, V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void removeUndirected(V u, V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	/**
+	 * Read-only view of one row of neighbor ids as vertices
+	 */
+	private class Row extends AbstractList<V> {
+		private final int[] targets;
+		private final int from, to;
+
+		Row(int[] targets, int from, int to) {
+			this.targets = targets;
+			this.from = from;
+			this.to = to;
+		}
+
+		public V get(int i) {
+			return vertexList.get(targets[from + i]);
+		}
+
+		public int size() {
+			return to - from;
+		}
+	}
+
+	/**
+	 * Returns a string representation of the vertex and edge lists.
+	 */
+	public String toString() {
+		StringBuilder edges = new StringBuilder("{");
+		for (int u = 0; u < vertexList.size(); u++) {
+			if (u > 0) edges.append(", ");
+			edges.append(vertexList.get(u)).append("={");
+			for (int slot = outOffsets[u]; slot < outOffsets[u + 1]; slot++) {
+				if (slot > outOffsets[u]) edges.append(", ");
+				edges.append(vertexList.get(outTargets[slot])).append('=').append(outLabelAt(slot));
+			}
+			edges.append('}');
+		}
+		return "Vertices: " + vertexList.toString() + "\nOut edges: " + edges.append('}');
+	}
+}
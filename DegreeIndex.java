@@ -0,0 +1,164 @@
+import java.util.*;
+
+/**
+ * Vertices bucketed by in-degree, for degree range queries without scanning or sorting
+ * Vertex ids are kept in one array sorted by degree, highest first, with end[d] marking how many vertices
+ * have degree at least d; so the vertices with degree in [low, high] are the slice [end[high+1], end[low]),
+ * already in descending order
+ * Changing a vertex's degree by one swaps it across a bucket boundary, so the index can be kept up to date
+ * as a graph is built and mutated (see DegreeIndexedGraph) at constant cost per edge
+ *
+ * @param <V>	the type of vertices
+ */
+public class DegreeIndex<V> {
+	private final Map<V, Integer> ids = new HashMap<V, Integer>();	// vertex -> id
+	private final List<V> vertices = new ArrayList<V>();			// id -> vertex (null for freed ids)
+	private final Deque<Integer> freeIds = new ArrayDeque<Integer>();	// ids of removed vertices, reused first
+	private int[] degree = new int[16];	// id -> in-degree
+	private int[] sorted = new int[16];	// ids by degree, highest first
+	private int[] pos = new int[16];		// id -> position in sorted
+	private int[] end = new int[2];		// end[d] = number of vertices with degree >= d
+	private int size;						// vertices indexed
+
+	/**
+	 * Indexes the in-degrees of a graph all at once, with a counting sort
+	 * Vertices with equal degree keep the order of g.vertices()
+	 * @param g graph to index
+	 * @return index of g's in-degrees
+	 */
+	public static <V,E> DegreeIndex<V> of(Graph<V,E> g) {
+		DegreeIndex<V> index = new DegreeIndex<V>();
+		int n = g.numVertices(), max = 0;
+		index.grow(n);
+		for (V v : g.vertices()) {
+			int id = index.vertices.size();
+			index.ids.put(v, id);
+			index.vertices.add(v);
+			index.degree[id] = g.inDegree(v);
+			max = Math.max(max, index.degree[id]);
+		}
+		index.end = new int[max + 2];
+		for (int id = 0; id < n; id++) index.end[index.degree[id]]++;
+		for (int d = max - 1; d >= 0; d--) index.end[d] += index.end[d + 1]; // suffix sums: count with degree >= d
+		int[] fill = new int[max + 2];
+		for (int d = 0; d <= max; d++) fill[d] = index.end[d + 1]; // bucket d starts where the higher degrees end
+		for (int id = 0; id < n; id++) {
+			int p = fill[index.degree[id]]++;
+			index.sorted[p] = id;
+			index.pos[id] = p;
+		}
+		index.size = n;
+		return index;
+	}
+
+	/**
+	 * The vertices with degree in [low, high], highest degree first
+	 */
+	public List<V> range(int low, int high) {
+		List<V> result = new ArrayList<V>();
+		low = Math.max(low, 0);
+		high = Math.min(high, end.length - 2); // end[end.length - 1] is always 0, so no degree above this is indexed
+		if (high < low) return result;
+		for (int p = end[high + 1]; p < end[low]; p++) result.add(vertices.get(sorted[p]));
+		return result;
+	}
+
+	/** How many vertices have degree in [low, high] */
+	public int count(int low, int high) {
+		low = Math.max(low, 0);
+		high = Math.min(high, end.length - 2);
+		if (high < low) return 0;
+		return end[low] - end[high + 1];
+	}
+
+	/** The degree of v, -1 if v is not indexed */
+	public int degree(V v) {
+		Integer id = ids.get(v);
+		return id == null ? -1 : degree[id];
+	}
+
+	/** Highest degree of any vertex, -1 if empty */
+	public int maxDegree() {
+		return size == 0 ? -1 : degree[sorted[0]];
+	}
+
+	/** How many vertices are indexed */
+	public int size() {
+		return size;
+	}
+
+	/** Adds v with degree 0 (nothing if already indexed) */
+	public void insert(V v) {
+		if (ids.containsKey(v)) return;
+		int id;
+		if (!freeIds.isEmpty()) {
+			id = freeIds.pop();
+			vertices.set(id, v);
+		}
+		else {
+			id = vertices.size();
+			vertices.add(v);
+		}
+		ids.put(v, id);
+		grow(Math.max(id, size) + 1);
+		degree[id] = 0;
+		sorted[size] = id; // degree 0 is the last bucket, so it goes at the end
+		pos[id] = size;
+		size++;
+		end[0]++;
+	}
+
+	/** Removes v from the index */
+	public void remove(V v) {
+		Integer id = ids.remove(v);
+		if (id == null) return;
+		while (degree[id] > 0) decrement(id);
+		swap(pos[id], size - 1); // last bucket, so moving to the very end keeps every bucket intact
+		size--;
+		end[0]--;
+		vertices.set(id, null);
+		freeIds.push(id);
+	}
+
+	/** Adds one to v's degree */
+	public void increment(V v) {
+		increment(ids.get(v));
+	}
+
+	/** Takes one from v's degree */
+	public void decrement(V v) {
+		decrement(ids.get(v));
+	}
+
+	private void increment(int id) {
+		int d = degree[id];
+		if (d + 2 >= end.length) end = Arrays.copyOf(end, Math.max(end.length * 2, d + 3));
+		swap(pos[id], end[d + 1]); // to the front of its bucket, which then becomes the back of bucket d+1
+		end[d + 1]++;
+		degree[id] = d + 1;
+	}
+
+	private void decrement(int id) {
+		int d = degree[id];
+		if (d == 0) throw new IllegalStateException("degree below zero for " + vertices.get(id));
+		swap(pos[id], end[d] - 1); // to the back of its bucket, which then becomes the front of bucket d-1
+		end[d]--;
+		degree[id] = d - 1;
+	}
+
+	private void swap(int p, int q) {
+		int a = sorted[p], b = sorted[q];
+		sorted[p] = b;
+		sorted[q] = a;
+		pos[b] = p;
+		pos[a] = q;
+	}
+
+	private void grow(int capacity) {
+		if (capacity <= degree.length) return;
+		int length = Math.max(capacity, degree.length * 2);
+		degree = Arrays.copyOf(degree, length);
+		sorted = Arrays.copyOf(sorted, length);
+		pos = Arrays.copyOf(pos, length);
+	}
+}
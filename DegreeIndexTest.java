@@ -0,0 +1,46 @@
+import java.util.*;
+
+/**
+ * Checks DegreeIndex range queries at the ends of the int range, on an index built all at once and on one kept up
+ * to date by a DegreeIndexedGraph
+ * usage: java DegreeIndexTest (exits non-zero on the first failed check)
+ */
+public class DegreeIndexTest {
+	public static void main(String[] args) {
+		DegreeIndexedGraph<String, String> g = new DegreeIndexedGraph<String, String>();
+		for (String v : new String[] { "a", "b", "c", "d" }) g.insertVertex(v);
+		g.insertUndirected("a", "b", "ab");
+		g.insertUndirected("a", "c", "ac");
+		g.insertUndirected("a", "d", "ad");
+		g.insertUndirected("b", "c", "bc");
+		check(g.degreeIndex());
+		check(DegreeIndex.of(g));
+
+		g.removeVertex("a"); // degrees drop, leaving end[] longer than it needs to be
+		DegreeIndex<String> shrunk = g.degreeIndex();
+		expect(shrunk.range(0, Integer.MAX_VALUE).size() == 3, "range after removal");
+		expect(shrunk.count(2, Integer.MAX_VALUE) == 0, "count above max degree after removal");
+
+		DegreeIndex<String> empty = new DegreeIndex<String>();
+		expect(empty.range(0, Integer.MAX_VALUE).isEmpty(), "range of empty index");
+		expect(empty.count(Integer.MIN_VALUE, Integer.MAX_VALUE) == 0, "count of empty index");
+		System.out.println("DegreeIndexTest passed");
+	}
+
+	/** a: 3, b: 2, c: 2, d: 1 */
+	private static void check(DegreeIndex<String> index) {
+		expect(index.range(0, Integer.MAX_VALUE).equals(Arrays.asList("a", "b", "c", "d"))
+				|| index.range(0, Integer.MAX_VALUE).equals(Arrays.asList("a", "c", "b", "d")), "range(0, MAX_VALUE)");
+		expect(index.count(0, Integer.MAX_VALUE) == 4, "count(0, MAX_VALUE)");
+		expect(index.count(Integer.MIN_VALUE, Integer.MAX_VALUE) == 4, "count(MIN_VALUE, MAX_VALUE)");
+		expect(index.range(Integer.MAX_VALUE, Integer.MAX_VALUE).isEmpty(), "range(MAX_VALUE, MAX_VALUE)");
+		expect(index.count(4, Integer.MAX_VALUE) == 0, "count above max degree");
+		expect(index.range(3, 3).equals(Collections.singletonList("a")), "range at max degree");
+		expect(index.range(2, 1).isEmpty(), "low > high");
+		expect(index.count(Integer.MIN_VALUE, -1) == 0, "negative range");
+	}
+
+	private static void expect(boolean ok, String what) {
+		if (!ok) throw new AssertionError("DegreeIndex " + what);
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ * Adjacency map graph that keeps a DegreeIndex of its in-degrees up to date as it is built and mutated
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class DegreeIndexedGraph<V,E> extends AdjMapGraph<V,E> {
+	private final DegreeIndex<V> degrees = new DegreeIndex<V>();
+
+	/** The in-degree index, current with every change to the graph */
+	public DegreeIndex<V> degreeIndex() {
+		return degrees;
+	}
+
+	public void insertVertex(V v) {
+		super.insertVertex(v);
+		degrees.insert(v);
+	}
+
+	public void insertDirected(V u, V v, E e) {
+		boolean added = !out.get(u).containsKey(v); // replacing a label doesn't change degrees
+		super.insertDirected(u, v, e);
+		if (added) degrees.increment(v);
+	}
+
+	public void removeVertex(V v) {
+		if (!hasVertex(v)) return;
+		for (V w : outNeighbors(v)) { // w loses its in edge from v
+			if (!w.equals(v)) degrees.decrement(w);
+		}
+		super.removeVertex(v);
+		degrees.remove(v);
+	}
+
+	public void removeDirected(V u, V v) {
+		boolean removed = out.get(u).containsKey(v);
+		super.removeDirected(u, v);
+		if (removed) degrees.decrement(v);
+	}
+}
@@ -0,0 +1,263 @@
+import java.util.*;
+
+/**
+ * Shortest path tree from one center that is kept up to date as its (mutable) graph changes, instead of being rebuilt
+ * by a full bfs after every new movie or cast change
+ * Changes are made through the tree's insert and remove methods, which apply them to the graph and then repair only
+ * what they affect: an insertion pushes shorter distances outward from the new edge, and a removal that cuts a tree
+ * edge first tries another parent at the same distance, and otherwise re-settles just the cut-off subtree from its
+ * boundary, nearest first (a dynamic bfs in the style of Ramalingam and Reps)
+ * Distances always equal those of a full bfs; parents may differ where there are ties
+ * Distances follow the same direction as BaconGraph.bfs: a vertex's distance is the length of its path to the root
+ * along out edges, and its parent is the next vertex on that path
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class DynamicPathTree<V,E> {
+	private final Graph<V,E> graph;
+	private final V root;
+	private final Map<V, Integer> dist = new HashMap<V, Integer>();	// reached vertex -> distance to root
+	private final Map<V, V> parent = new HashMap<V, V>();				// reached vertex (other than root) -> next vertex toward root
+	private long repaired;												// vertices whose distance or parent was changed by updates
+
+	/**
+	 * Builds the tree with a full bfs; after this, changes to graph must go through the tree
+	 * @param graph graph to follow
+	 * @param root center of the universe
+	 */
+	public DynamicPathTree(Graph<V,E> graph, V root) {
+		if (!graph.hasVertex(root)) throw new IllegalArgumentException(root + " is not in the graph");
+		this.graph = graph;
+		this.root = root;
+		dist.put(root, 0);
+		propagate(root);
+	}
+
+	/** The graph the tree follows */
+	public Graph<V,E> graph() {
+		return graph;
+	}
+
+	/** The root of the tree */
+	public V root() {
+		return root;
+	}
+
+	/** How many vertices are reached, including the root */
+	public int numVertices() {
+		return dist.size();
+	}
+
+	/** Whether or not v is reached from the root */
+	public boolean hasVertex(V v) {
+		return dist.containsKey(v);
+	}
+
+	/** Distance from v to the root, -1 if v is not reached */
+	public int distance(V v) {
+		Integer d = dist.get(v);
+		return d == null ? -1 : d;
+	}
+
+	/** The next vertex from v toward the root, null for the root and unreached vertices */
+	public V parentOf(V v) {
+		return parent.get(v);
+	}
+
+	/** The label on the tree edge from v to its parent, null for the root and unreached vertices */
+	public E getLabel(V v) {
+		V p = parent.get(v);
+		return p == null ? null : graph.getLabel(v, p);
+	}
+
+	/**
+	 * The path from v to the root
+	 * @return list of vertices starting at v and ending at the root, empty if v is not reached
+	 */
+	public List<V> getPath(V v) {
+		List<V> path = new ArrayList<V>();
+		if (!dist.containsKey(v)) return path;
+		for (V curr = v; curr != null; curr = parent.get(curr)) path.add(curr);
+		return path;
+	}
+
+	/** Total vertices whose distance or parent updates have changed, for seeing how local repairs are */
+	public long repaired() {
+		return repaired;
+	}
+
+	/**
+	 * The tree as a graph, in the same shape BaconGraph.bfs returns (edges from each vertex to its parent),
+	 * for the BaconGraph helpers that take one
+	 */
+	public Graph<V,E> toGraph() {
+		Graph<V,E> tree = new AdjMapGraph<V,E>();
+		for (V v : dist.keySet()) tree.insertVertex(v);
+		for (Map.Entry<V, V> e : parent.entrySet()) {
+			tree.insertDirected(e.getKey(), e.getValue(), graph.getLabel(e.getKey(), e.getValue()));
+		}
+		return tree;
+	}
+
+	public void insertVertex(V v) {
+		graph.insertVertex(v); // no edges yet, so not reached
+	}
+
+	public void insertDirected(V u, V v, E e) {
+		graph.insertDirected(u, v, e);
+		relax(u, v);
+	}
+
+	public void insertUndirected(V u, V v, E e) {
+		graph.insertUndirected(u, v, e);
+		relax(u, v);
+		relax(v, u);
+	}
+
+	public void removeDirected(V u, V v) {
+		graph.removeDirected(u, v);
+		cut(u, v);
+	}
+
+	public void removeUndirected(V u, V v) {
+		graph.removeUndirected(u, v);
+		cut(u, v);
+		cut(v, u);
+	}
+
+	/**
+	 * Removes v and its edges; removing the root leaves nothing reached
+	 */
+	public void removeVertex(V v) {
+		if (!graph.hasVertex(v)) return;
+		if (v.equals(root)) {
+			graph.removeVertex(v);
+			repaired += dist.size();
+			dist.clear();
+			parent.clear();
+			return;
+		}
+		Set<V> affected = dist.containsKey(v) ? subtree(v) : Collections.<V>emptySet(); // found before v's edges go
+		graph.removeVertex(v);
+		if (affected.isEmpty()) return;
+		affected.remove(v);
+		dist.remove(v);
+		parent.remove(v);
+		repaired++;
+		resettle(affected);
+	}
+
+	/**
+	 * After an edge u -> v appears: if v gives u a shorter path to the root, take it, and spread the improvement to
+	 * whatever reaches the root through u
+	 */
+	private void relax(V u, V v) {
+		Integer dv = dist.get(v);
+		if (dv == null) return;
+		Integer du = dist.get(u);
+		if (du != null && du <= dv + 1) return;
+		dist.put(u, dv + 1);
+		parent.put(u, v);
+		repaired++;
+		propagate(u);
+	}
+
+	/**
+	 * Bfs outward from start (whose distance is already set), lowering any distance it improves on;
+	 * starting from one vertex, the queue stays in distance order, so each vertex is settled once
+	 */
+	private void propagate(V start) {
+		ArrayDeque<V> queue = new ArrayDeque<V>();
+		queue.add(start);
+		while (!queue.isEmpty()) {
+			V x = queue.poll();
+			int next = dist.get(x) + 1;
+			for (V w : graph.inNeighbors(x)) { // w -> x, so w is one step farther
+				Integer dw = dist.get(w);
+				if (dw == null || next < dw) {
+					dist.put(w, next);
+					parent.put(w, x);
+					repaired++;
+					queue.add(w);
+				}
+			}
+		}
+	}
+
+	/**
+	 * After an edge u -> v disappears: only matters if it was u's tree edge, and then only to u's subtree
+	 */
+	private void cut(V u, V v) {
+		if (!v.equals(parent.get(u))) return; // not a tree edge, so no distance changes
+		int du = dist.get(u);
+		for (V p : graph.outNeighbors(u)) { // another parent at the same distance keeps the whole subtree as is
+			Integer dp = dist.get(p);
+			if (dp != null && dp == du - 1) {
+				parent.put(u, p);
+				repaired++;
+				return;
+			}
+		}
+		resettle(subtree(u));
+	}
+
+	/**
+	 * Vertices whose tree path to the root goes through top, including top
+	 */
+	private Set<V> subtree(V top) {
+		Set<V> below = new HashSet<V>();
+		ArrayDeque<V> stack = new ArrayDeque<V>();
+		below.add(top);
+		stack.push(top);
+		while (!stack.isEmpty()) {
+			V x = stack.pop();
+			for (V w : graph.inNeighbors(x)) {
+				if (x.equals(parent.get(w)) && below.add(w)) stack.push(w);
+			}
+		}
+		return below;
+	}
+
+	/**
+	 * Recomputes the distances of a cut-off set of vertices from the rest of the tree: each starts from its best
+	 * neighbor outside the set, then they are settled nearest first, the way Dijkstra would with unit edges;
+	 * any left unsettled can no longer reach the root
+	 */
+	private void resettle(Set<V> affected) {
+		for (V x : affected) {
+			dist.remove(x);
+			parent.remove(x);
+		}
+		repaired += affected.size();
+		Map<V, Integer> tentative = new HashMap<V, Integer>();
+		PriorityQueue<Map.Entry<V, Integer>> queue = new PriorityQueue<Map.Entry<V, Integer>>(Map.Entry.comparingByValue());
+		for (V x : affected) {
+			for (V p : graph.outNeighbors(x)) { // best way back in through an unaffected vertex
+				Integer dp = dist.get(p);
+				if (dp != null && (!tentative.containsKey(x) || dp + 1 < tentative.get(x))) {
+					tentative.put(x, dp + 1);
+					parent.put(x, p);
+				}
+			}
+			if (tentative.containsKey(x)) queue.add(new AbstractMap.SimpleEntry<V, Integer>(x, tentative.get(x)));
+		}
+		while (!queue.isEmpty()) {
+			Map.Entry<V, Integer> entry = queue.poll();
+			V x = entry.getKey();
+			int d = entry.getValue();
+			if (dist.containsKey(x) || d != tentative.get(x)) continue; // already settled, or a stale entry
+			dist.put(x, d);
+			for (V w : graph.inNeighbors(x)) {
+				if (affected.contains(w) && !dist.containsKey(w) && (!tentative.containsKey(w) || d + 1 < tentative.get(w))) {
+					tentative.put(w, d + 1);
+					parent.put(w, x);
+					queue.add(new AbstractMap.SimpleEntry<V, Integer>(w, d + 1));
+				}
+			}
+		}
+		for (V x : affected) {
+			if (!dist.containsKey(x)) parent.remove(x); // unreachable now
+		}
+	}
+}
@@ -0,0 +1,204 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * compact binary snapshot of a built costar graph, so BaconGame can start without re-parsing the text files
+ * holds the actor names, the CSR adjacency arrays, and every movie title once, with each edge label stored
+ * as a range of title ids in a shared pool
+ * loading maps the file into memory and bulk-copies the arrays; labels are read-only views decoded from the pool
+ * on demand, so nothing is created per edge
+ *
+ * layout (big-endian): header, actor names, movie titles, then the int arrays
+ *   offsets[n+1], targets[m], labelIndex[m], (if directed: inOffsets[n+1], inTargets[m'], inLabelIndex[m']),
+ *   labelOffsets[labels+1], labelPool[pool]
+ * strings are an int byte length (-1 for null) followed by UTF-8 bytes
+ */
+public class GraphSnapshot {
+    private static final int MAGIC = 0x42434752; //"BCGR"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * 10 + 8 * 2;
+
+    /**
+     * writes a snapshot of graph to a file
+     * @param graph costar graph to save
+     * @param snapshotPath file to write
+     * @throws IOException if error while writing
+     */
+    public static void write(CsrGraph<String, Set<String>> graph, String snapshotPath) throws IOException {
+        boolean symmetric = graph.inTargets() == graph.outTargets();
+
+        //give each distinct label a dense id in first-seen order
+        List<Set<String>> labels = new ArrayList<>();
+        Map<Integer, Integer> labelIds = new HashMap<>();
+        int[] outLabelIds = relabel(graph, graph.outLabelIndex(), labels, labelIds);
+        int[] inLabelIds = symmetric ? null : relabel(graph, graph.inLabelIndex(), labels, labelIds);
+
+        //intern the titles, and lay each label out as a range of title ids (keeping each set's order, so labels print the same)
+        MovieLabelStore store = MovieLabelStore.intern(labels);
+        int[] labelOffsets = store.offsets(), labelPool = store.pool();
+
+        byte[][] nameBytes = encode(graph.vertices());
+        byte[][] titleBytes = encode(Arrays.asList(store.titles()));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotPath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(symmetric ? 0 : 1);
+            out.writeInt(graph.numVertices());
+            out.writeInt(graph.outTargets().length);
+            out.writeInt(graph.inTargets().length);
+            out.writeInt(store.titles().length);
+            out.writeInt(labels.size());
+            out.writeInt(labelPool.length);
+            out.writeInt(0); //reserved
+            out.writeLong(sectionBytes(nameBytes));
+            out.writeLong(sectionBytes(titleBytes));
+            writeStrings(out, nameBytes);
+            writeStrings(out, titleBytes);
+            writeInts(out, graph.outOffsets());
+            writeInts(out, graph.outTargets());
+            writeInts(out, outLabelIds);
+            if (!symmetric) {
+                writeInts(out, graph.inOffsets());
+                writeInts(out, graph.inTargets());
+                writeInts(out, inLabelIds);
+            }
+            writeInts(out, labelOffsets);
+            writeInts(out, labelPool);
+        }
+    }
+
+    /**
+     * loads a snapshot written by write, through a memory-mapped read of the file
+     * @param snapshotPath file to read
+     * @return the saved costar graph
+     * @throws IOException if error while reading, or the file is not a snapshot
+     */
+    public static CsrGraph<String, Set<String>> load(String snapshotPath) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotPath), StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new IOException(snapshotPath + " is not a graph snapshot");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException(snapshotPath + " has unsupported snapshot version " + version);
+            boolean symmetric = header.getInt() == 0;
+            int n = header.getInt(), m = header.getInt(), inM = header.getInt();
+            int numTitles = header.getInt(), numLabels = header.getInt(), pool = header.getInt();
+            header.getInt(); //reserved
+            long nameSection = header.getLong(), titleSection = header.getLong();
+
+            long pos = HEADER_BYTES;
+            List<String> names = Arrays.asList(readStrings(channel, pos, nameSection, n));
+            pos += nameSection;
+            String[] titles = readStrings(channel, pos, titleSection, numTitles);
+            pos += titleSection;
+
+            int[] offsets = readInts(channel, pos, n + 1);
+            pos += 4L * (n + 1);
+            int[] targets = readInts(channel, pos, m);
+            pos += 4L * m;
+            int[] labelIndex = readInts(channel, pos, m);
+            pos += 4L * m;
+            int[] inOffsets = offsets, inTargets = targets, inLabelIndex = labelIndex;
+            if (!symmetric) {
+                inOffsets = readInts(channel, pos, n + 1);
+                pos += 4L * (n + 1);
+                inTargets = readInts(channel, pos, inM);
+                pos += 4L * inM;
+                inLabelIndex = readInts(channel, pos, inM);
+                pos += 4L * inM;
+            }
+            int[] labelOffsets = readInts(channel, pos, numLabels + 1);
+            pos += 4L * (numLabels + 1);
+            int[] labelPool = readInts(channel, pos, pool);
+
+            //labels are views over the pool, made when asked for rather than stored per edge
+            MovieLabelStore store = new MovieLabelStore(titles, labelOffsets, labelPool);
+            Metrics.timer("snapshot.load").recordSince(start);
+            return new CsrGraph<>(names, offsets, targets, labelIndex, inOffsets, inTargets, inLabelIndex, store::label);
+        }
+    }
+
+    /**
+     * builds a snapshot from the three bacon text files, and its landmark index next to it
+     * usage: GraphSnapshot movies.txt actors.txt movie-actors.txt out.snapshot
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.out.println("usage: GraphSnapshot <movies> <actors> <movie-actors> <snapshot>");
+            return;
+        }
+        CsrGraph<String, Set<String>> graph = BaconGraphBuilder.buildGraph(args[0], args[1], args[2], Runtime.getRuntime().availableProcessors(), null);
+        write(graph, args[3]);
+        LandmarkIndex.spread(graph, LandmarkIndex.DEFAULT_LANDMARKS).write(LandmarkIndex.pathFor(args[3]));
+    }
+
+    /** dense ids for the labels used by the edges, appending new labels to the table */
+    private static int[] relabel(CsrGraph<String, Set<String>> graph, int[] labelIndex, List<Set<String>> labels, Map<Integer, Integer> labelIds) {
+        int[] dense = new int[labelIndex.length];
+        for (int slot = 0; slot < labelIndex.length; slot++) {
+            Integer id = labelIds.get(labelIndex[slot]);
+            if (id == null) {
+                id = labels.size();
+                labelIds.put(labelIndex[slot], id);
+                labels.add(graph.label(labelIndex[slot]));
+            }
+            dense[slot] = id;
+        }
+        return dense;
+    }
+
+    private static byte[][] encode(Iterable<String> strings) {
+        List<byte[]> encoded = new ArrayList<>();
+        for (String s : strings) {
+            encoded.add(s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+        }
+        return encoded.toArray(new byte[0][]);
+    }
+
+    private static long sectionBytes(byte[][] strings) {
+        long bytes = 0;
+        for (byte[] s : strings) bytes += 4 + (s == null ? 0 : s.length);
+        return bytes;
+    }
+
+    private static void writeStrings(DataOutputStream out, byte[][] strings) throws IOException {
+        for (byte[] s : strings) {
+            if (s == null) {
+                out.writeInt(-1);
+            }
+            else {
+                out.writeInt(s.length);
+                out.write(s);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int v : values) out.writeInt(v);
+    }
+
+    private static String[] readStrings(FileChannel channel, long pos, long bytes, int count) throws IOException {
+        MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, pos, bytes);
+        String[] strings = new String[count];
+        byte[] buf = new byte[256];
+        for (int i = 0; i < count; i++) {
+            int length = in.getInt();
+            if (length < 0) continue; //null
+            if (length > buf.length) buf = new byte[Math.max(length, 2 * buf.length)];
+            in.get(buf, 0, length);
+            strings[i] = new String(buf, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static int[] readInts(FileChannel channel, long pos, int count) throws IOException {
+        int[] values = new int[count];
+        channel.map(FileChannel.MapMode.READ_ONLY, pos, 4L * count).asIntBuffer().get(values); //bulk copy, no per-element calls
+        return values;
+    }
+}
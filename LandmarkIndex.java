@@ -0,0 +1,280 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Distance oracle for any pair of vertices of a CsrGraph, from bfs distances to a few landmarks computed up front
+ * By the triangle inequality, for every landmark L: d(s,t) <= d(s,L) + d(L,t), and d(s,t) >= d(s,L) - d(t,L) and
+ * d(s,t) >= d(L,t) - d(L,s); so k landmarks give lower and upper bounds in O(k), and when they meet that is the
+ * exact distance with no search at all; otherwise distance() falls back to a bidirectional bfs
+ * Distances are stored a byte each, vertex-major (each vertex's k distances are adjacent, so a query reads two short
+ * runs); in a symmetric graph one array serves both directions, otherwise distances from the landmarks are kept too
+ * Immutable once built, so one index can be shared between threads
+ * Saved with write and read back with load, next to the graph's snapshot (see pathFor)
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class LandmarkIndex<V,E> {
+	public static final int DEFAULT_LANDMARKS = 16;
+	public static final int INFINITE = Integer.MAX_VALUE;	// bound for pairs with no path (or no known upper bound)
+	private static final int MAGIC = 0x42434c4d;				// "BCLM"
+	private static final int VERSION = 1;
+	private static final int UNREACHED = 0xff, FAR = 0xfe;	// stored distances: no path, and too far to store (254+)
+	private static final Metrics.Counter QUERIES = Metrics.counter("landmarks.queries");
+	private static final Metrics.Counter EXACT = Metrics.counter("landmarks.exact");	// answered by the bounds alone
+	private final CsrGraph<V,E> graph;
+	private final int[] landmarks;	// landmark ids
+	private final byte[] to;		// to[v*k + i] = distance from v to landmark i
+	private final byte[] from;		// from[v*k + i] = distance from landmark i to v; same array as to if the graph is symmetric
+
+	private LandmarkIndex(CsrGraph<V,E> graph, int[] landmarks, byte[] to, byte[] from) {
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.to = to;
+		this.from = from;
+	}
+
+	/**
+	 * Index over the k vertices of highest degree (ties to the smaller id)
+	 */
+	public static <V,E> LandmarkIndex<V,E> byDegree(CsrGraph<V,E> graph, int k) {
+		int n = graph.numVertices();
+		k = Math.min(k, n);
+		int[] offsets = graph.inOffsets();
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> {
+			int c = Integer.compare(offsets[b + 1] - offsets[b], offsets[a + 1] - offsets[a]);
+			return c != 0 ? c : Integer.compare(a, b);
+		});
+		int[] landmarks = new int[k];
+		for (int i = 0; i < k; i++) landmarks[i] = order[i];
+		Searches<V,E> searches = new Searches<V,E>(graph);
+		byte[] to = new byte[n * k], from = searches.symmetric ? to : new byte[n * k];
+		for (int i = 0; i < k; i++) searches.fill(landmarks[i], i, k, to, from);
+		return new LandmarkIndex<V,E>(graph, landmarks, to, from);
+	}
+
+	/**
+	 * Index over k well spread landmarks: the highest degree vertex, then repeatedly the vertex farthest from every
+	 * landmark so far (farthest-point sampling, which tends to give tighter bounds than degree alone)
+	 * Only vertices reached from the first landmark are picked, so no landmark is spent on a tiny component;
+	 * pairs outside its reach simply fall back to search
+	 */
+	public static <V,E> LandmarkIndex<V,E> spread(CsrGraph<V,E> graph, int k) {
+		int n = graph.numVertices();
+		k = Math.min(k, n);
+		int[] offsets = graph.inOffsets();
+		int first = 0;
+		for (int v = 1; v < n; v++) {
+			if (offsets[v + 1] - offsets[v] > offsets[first + 1] - offsets[first]) first = v;
+		}
+		Searches<V,E> searches = new Searches<V,E>(graph);
+		byte[] to = new byte[n * k], from = searches.symmetric ? to : new byte[n * k];
+		int[] nearest = new int[n];		// distance to the closest landmark so far, -1 if not reached from the first
+		Arrays.fill(nearest, -1);
+		int[] landmarks = new int[k];
+		int chosen = 0;
+		for (int next = first; next >= 0 && chosen < k; chosen++) {
+			landmarks[chosen] = next;
+			searches.fill(next, chosen, k, to, from);
+			next = -1;
+			for (int v = 0; v < n; v++) {
+				int d = to[v * k + chosen] & 0xff;
+				if (d == UNREACHED) continue;
+				if (chosen == 0 || d < nearest[v]) nearest[v] = d;
+				if (nearest[v] > 0 && (next < 0 || nearest[v] > nearest[next])) next = v;
+			}
+		}
+		if (chosen < k) { // ran out of vertices to spread over; keep only the landmarks found
+			byte[] narrow = shrink(to, n, k, chosen);
+			return new LandmarkIndex<V,E>(graph, Arrays.copyOf(landmarks, chosen), narrow, searches.symmetric ? narrow : shrink(from, n, k, chosen));
+		}
+		return new LandmarkIndex<V,E>(graph, landmarks, to, from);
+	}
+
+	/** Distance arrays of width k cut down to their first width columns */
+	private static byte[] shrink(byte[] dist, int n, int k, int width) {
+		byte[] narrow = new byte[n * width];
+		for (int v = 0; v < n; v++) System.arraycopy(dist, v * k, narrow, v * width, width);
+		return narrow;
+	}
+
+	/**
+	 * Bfs in both directions from each landmark into its column of the distance arrays
+	 */
+	private static class Searches<V,E> {
+		final boolean symmetric;
+		final BfsEngine<V,E> toward;	// follows in edges, so distances are to the source
+		final BfsEngine<V,E> away;		// over the reversed graph, so distances are from the source
+
+		Searches(CsrGraph<V,E> graph) {
+			symmetric = graph.inTargets() == graph.outTargets();
+			toward = new BfsEngine<V,E>(graph);
+			toward.directionOptimizing(BfsEngine.DEFAULT_ALPHA, BfsEngine.DEFAULT_BETA); // only distances are used
+			if (symmetric) {
+				away = null;
+			}
+			else {
+				List<V> vertices = new ArrayList<V>();
+				for (V v : graph.vertices()) vertices.add(v);
+				CsrGraph<V,E> reversed = new CsrGraph<V,E>(vertices, graph.inOffsets(), graph.inTargets(), graph.inLabelIndex(),
+						graph.outOffsets(), graph.outTargets(), graph.outLabelIndex(), graph::label);
+				away = new BfsEngine<V,E>(reversed);
+				away.directionOptimizing(BfsEngine.DEFAULT_ALPHA, BfsEngine.DEFAULT_BETA);
+			}
+		}
+
+		void fill(int landmark, int column, int k, byte[] to, byte[] from) {
+			store(toward.bfs(landmark), column, k, to);
+			if (!symmetric) store(away.bfs(landmark), column, k, from);
+		}
+
+		private static void store(ShortestPathTree<?,?> tree, int column, int k, byte[] dist) {
+			for (int v = 0; v < dist.length / k; v++) dist[v * k + column] = (byte) UNREACHED;
+			for (int i = 0; i < tree.numVertices(); i++) {
+				int v = tree.reachedId(i);
+				dist[v * k + column] = (byte) Math.min(tree.distance(v), FAR);
+			}
+		}
+	}
+
+	/** The graph the index was built on */
+	public CsrGraph<V,E> graph() {
+		return graph;
+	}
+
+	public int numLandmarks() {
+		return landmarks.length;
+	}
+
+	/** The i-th landmark */
+	public V landmark(int i) {
+		return graph.vertex(landmarks[i]);
+	}
+
+	/** Bytes held by the distance arrays */
+	public long retainedBytes() {
+		return to.length + (from == to ? 0 : from.length) + 4L * landmarks.length;
+	}
+
+	/**
+	 * Largest lower bound on the distance from s to t the landmarks give
+	 * @return a lower bound, INFINITE if the landmarks show there is no path
+	 */
+	public int lowerBound(int s, int t) {
+		if (s == t) return 0;
+		int k = landmarks.length, best = 0;
+		for (int i = 0, a = s * k, b = t * k; i < k; i++, a++, b++) {
+			int sl = to[a] & 0xff, tl = to[b] & 0xff;		// d(s,L), d(t,L)
+			int ls = from[a] & 0xff, lt = from[b] & 0xff;	// d(L,s), d(L,t)
+			if (sl == UNREACHED && tl != UNREACHED) return INFINITE; // t reaches L, so if s reached t it would too
+			if (ls != UNREACHED && lt == UNREACHED) return INFINITE; // L reaches s, so it would reach t through s
+			if (sl < FAR && tl < FAR) best = Math.max(best, sl - tl);
+			if (ls < FAR && lt < FAR) best = Math.max(best, lt - ls);
+		}
+		return best;
+	}
+
+	/**
+	 * Smallest upper bound on the distance from s to t the landmarks give
+	 * @return an upper bound, INFINITE if no landmark lies on a path between them
+	 */
+	public int upperBound(int s, int t) {
+		if (s == t) return 0;
+		int k = landmarks.length, best = INFINITE;
+		for (int i = 0, a = s * k, b = t * k; i < k; i++, a++, b++) {
+			int sl = to[a] & 0xff, lt = from[b] & 0xff;
+			if (sl < FAR && lt < FAR) best = Math.min(best, sl + lt);
+		}
+		return best;
+	}
+
+	/**
+	 * Exact distance from s to t: from the bounds when they meet, otherwise by a bidirectional search
+	 * @param search search over this index's graph, for the pairs the bounds don't settle
+	 * @return number of edges on a shortest path, -1 if there is none
+	 */
+	public int distance(int s, int t, BidirectionalBfs<V,E> search) {
+		QUERIES.increment();
+		int lower = lowerBound(s, t);
+		if (lower == INFINITE) {
+			EXACT.increment();
+			return -1;
+		}
+		if (lower == upperBound(s, t)) {
+			EXACT.increment();
+			return lower;
+		}
+		return search.distance(s, t);
+	}
+
+	/**
+	 * Exact distance between two vertices
+	 * @return number of edges on a shortest path, -1 if there is none or either isn't in the graph
+	 */
+	public int distance(V s, V t, BidirectionalBfs<V,E> search) {
+		int a = graph.indexOf(s), b = graph.indexOf(t);
+		if (a < 0 || b < 0) return -1;
+		return distance(a, b, search);
+	}
+
+	/** Where the index for a graph snapshot is kept: next to it, with .landmarks added */
+	public static String pathFor(String snapshotPath) {
+		return snapshotPath + ".landmarks";
+	}
+
+	/**
+	 * Saves the index
+	 * layout (big-endian): magic, version, vertices, edges, symmetric (0/1), k, landmark ids[k], to[n*k], (if not
+	 * symmetric) from[n*k]
+	 * @throws IOException if error while writing
+	 */
+	public void write(String path) throws IOException {
+		boolean symmetric = from == to;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(graph.numVertices());
+			out.writeInt(graph.outTargets().length);
+			out.writeInt(symmetric ? 1 : 0);
+			out.writeInt(landmarks.length);
+			for (int id : landmarks) out.writeInt(id);
+			out.write(to);
+			if (!symmetric) out.write(from);
+		}
+	}
+
+	/**
+	 * Reads an index saved by write
+	 * @param graph the graph it was built on
+	 * @throws IOException if error while reading, or the file isn't an index for this graph
+	 */
+	public static <V,E> LandmarkIndex<V,E> load(String path, CsrGraph<V,E> graph) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+			if (in.readInt() != MAGIC) throw new IOException(path + " is not a landmark index");
+			int version = in.readInt();
+			if (version != VERSION) throw new IOException(path + " has unsupported landmark index version " + version);
+			int n = in.readInt(), m = in.readInt();
+			boolean symmetric = in.readInt() == 1;
+			if (n != graph.numVertices() || m != graph.outTargets().length || symmetric != (graph.inTargets() == graph.outTargets())) {
+				throw new IOException(path + " was built for a different graph");
+			}
+			int k = in.readInt();
+			int[] landmarks = new int[k];
+			for (int i = 0; i < k; i++) landmarks[i] = in.readInt();
+			byte[] to = new byte[n * k];
+			in.readFully(to);
+			byte[] from = to;
+			if (!symmetric) {
+				from = new byte[n * k];
+				in.readFully(from);
+			}
+			return new LandmarkIndex<V,E>(graph, landmarks, to, from);
+		}
+	}
+
+	public String toString() {
+		return "landmark index: " + landmarks.length + " landmarks, " + (retainedBytes() >> 10) + " KB";
+	}
+}
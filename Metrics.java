@@ -0,0 +1,335 @@
+import javax.management.*;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for the hot paths (graph loading, bfs, the tree cache, game commands)
+ * Cheap enough to leave on: a counter is a LongAdder, a histogram a fixed array of log-linear buckets (HdrHistogram
+ * style, 16 per power of two, so a reported percentile is within 1/16 of the true value) bumped with one atomic add,
+ * and hot loops count into locals and report once per search rather than per vertex or edge
+ * Metrics are looked up by name once (usually into a static final field) and live as long as the process
+ * Readable as text or json, as a periodic dump, and over JMX as the MBean bacon:type=Metrics
+ * Set up from system properties by export(): bacon.metrics.jmx (default true), bacon.metrics.dump (seconds between
+ * dumps to stderr, default 0 for none) and bacon.metrics.format (text or json)
+ */
+public final class Metrics {
+	public static final String OBJECT_NAME = "bacon:type=Metrics";
+	private static final ConcurrentSkipListMap<String, Counter> counters = new ConcurrentSkipListMap<String, Counter>();		// sorted, so dumps are stable
+	private static final ConcurrentSkipListMap<String, Histogram> histograms = new ConcurrentSkipListMap<String, Histogram>();
+	private static ScheduledExecutorService dumper;	// made on the first periodic dump
+
+	private Metrics() {}
+
+	/** The counter with this name, made on first use */
+	public static Counter counter(String name) {
+		return counters.computeIfAbsent(name, n -> new Counter());
+	}
+
+	/** The histogram of plain values (sizes, counts) with this name, made on first use */
+	public static Histogram histogram(String name) {
+		return histograms.computeIfAbsent(name, n -> new Histogram(false));
+	}
+
+	/** The histogram of nanosecond durations with this name, made on first use */
+	public static Histogram timer(String name) {
+		return histograms.computeIfAbsent(name, n -> new Histogram(true));
+	}
+
+	/** Zeroes every metric (they stay registered) */
+	public static void reset() {
+		for (Counter c : counters.values()) c.reset();
+		for (Histogram h : histograms.values()) h.reset();
+	}
+
+	/**
+	 * A count that only goes up; adds from many threads don't contend
+	 */
+	public static final class Counter {
+		private final LongAdder sum = new LongAdder();
+
+		public void increment() {
+			sum.increment();
+		}
+
+		public void add(long n) {
+			sum.add(n);
+		}
+
+		public long sum() {
+			return sum.sum();
+		}
+
+		void reset() {
+			sum.reset();
+		}
+	}
+
+	/**
+	 * Distribution of non-negative long values in log-linear buckets: values below 16 get a bucket each, and every
+	 * power of two above that is split into 16 equal buckets, so 960 buckets cover every long
+	 */
+	public static final class Histogram {
+		private static final int SUB_BITS = 4, SUB = 1 << SUB_BITS;
+		private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+		private final boolean nanos;				// values are durations in nanoseconds
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		private final LongAdder count = new LongAdder(), sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		Histogram(boolean nanos) {
+			this.nanos = nanos;
+		}
+
+		/** Records one value (negative values count as 0) */
+		public void record(long value) {
+			if (value < 0) value = 0;
+			buckets.incrementAndGet(bucket(value));
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		/** Records the time since start, a System.nanoTime() reading */
+		public void recordSince(long start) {
+			record(System.nanoTime() - start);
+		}
+
+		/** Whether values are nanosecond durations */
+		public boolean nanos() {
+			return nanos;
+		}
+
+		public long count() {
+			return count.sum();
+		}
+
+		public long max() {
+			return max.get();
+		}
+
+		public double mean() {
+			long n = count.sum();
+			return n == 0 ? 0 : (double) sum.sum() / n;
+		}
+
+		/**
+		 * The value at quantile q (0 to 1): the top of the bucket holding it, capped at the max seen
+		 */
+		public long percentile(double q) {
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++) total += buckets.get(i);
+			if (total == 0) return 0;
+			long rank = Math.max(1, (long) Math.ceil(q * total)), seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += buckets.get(i);
+				if (seen >= rank) return Math.min(highest(i), max.get());
+			}
+			return max.get();
+		}
+
+		private static int bucket(long value) {
+			if (value < SUB) return (int) value;
+			int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+			return (shift + 1) * SUB + (int) ((value >>> shift) - SUB);
+		}
+
+		/** Largest value that lands in bucket i */
+		private static long highest(int i) {
+			if (i < SUB) return i;
+			int shift = i / SUB - 1;
+			long low = (long) (i % SUB + SUB) << shift;
+			return low + (1L << shift) - 1;
+		}
+
+		void reset() {
+			for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+			count.reset();
+			sum.reset();
+			max.reset();
+		}
+	}
+
+	/**
+	 * Every metric, one per line: counters as "name value", histograms as count, mean and percentiles
+	 * (durations in milliseconds)
+	 */
+	public static String text() {
+		StringBuilder out = new StringBuilder();
+		for (Map.Entry<String, Counter> e : counters.entrySet()) {
+			out.append(e.getKey()).append(' ').append(e.getValue().sum()).append('\n');
+		}
+		for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+			Histogram h = e.getValue();
+			out.append(e.getKey()).append(" count ").append(h.count())
+					.append(" mean ").append(format(h, h.mean()))
+					.append(" p50 ").append(format(h, h.percentile(0.5)))
+					.append(" p90 ").append(format(h, h.percentile(0.9)))
+					.append(" p99 ").append(format(h, h.percentile(0.99)))
+					.append(" max ").append(format(h, h.max()))
+					.append(h.nanos() ? " ms" : "").append('\n');
+		}
+		return out.toString();
+	}
+
+	private static String format(Histogram h, double value) {
+		return h.nanos() ? String.format("%.3f", value / 1e6) : String.format("%.1f", value);
+	}
+
+	/**
+	 * Every metric as one json object: {"counters": {name: value}, "histograms": {name: {unit, count, mean, p50, p90,
+	 * p99, p999, max}}}, durations in nanoseconds
+	 */
+	public static String json() {
+		StringBuilder out = new StringBuilder("{\"counters\":{");
+		String sep = "";
+		for (Map.Entry<String, Counter> e : counters.entrySet()) {
+			out.append(sep).append(quote(e.getKey())).append(':').append(e.getValue().sum());
+			sep = ",";
+		}
+		out.append("},\"histograms\":{");
+		sep = "";
+		for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+			Histogram h = e.getValue();
+			out.append(sep).append(quote(e.getKey())).append(":{\"unit\":\"").append(h.nanos() ? "ns" : "1")
+					.append("\",\"count\":").append(h.count())
+					.append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", h.mean()))
+					.append(",\"p50\":").append(h.percentile(0.5))
+					.append(",\"p90\":").append(h.percentile(0.9))
+					.append(",\"p99\":").append(h.percentile(0.99))
+					.append(",\"p999\":").append(h.percentile(0.999))
+					.append(",\"max\":").append(h.max()).append('}');
+			sep = ",";
+		}
+		return out.append("}}").toString();
+	}
+
+	private static String quote(String s) {
+		StringBuilder out = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') out.append('\\').append(c);
+			else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+			else out.append(c);
+		}
+		return out.append('"').toString();
+	}
+
+	/**
+	 * Writes a dump to out every period, on a daemon thread, until the returned future is cancelled
+	 * @param json json lines rather than text
+	 */
+	public static synchronized ScheduledFuture<?> dumpEvery(long period, TimeUnit unit, PrintStream out, boolean json) {
+		if (dumper == null) {
+			dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "metrics-dump");
+				t.setDaemon(true); // never keeps the process alive
+				return t;
+			});
+		}
+		return dumper.scheduleAtFixedRate(() -> out.println(json ? json() : text()), period, period, unit);
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server (once; later calls do nothing)
+	 */
+	public static synchronized void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) server.registerMBean(new Bean(), name);
+		} catch (JMException e) {
+			throw new IllegalStateException("could not register " + OBJECT_NAME, e);
+		}
+	}
+
+	/**
+	 * Turns on whatever the bacon.metrics.* system properties ask for; the games' main methods call this
+	 */
+	public static void export() {
+		if (!System.getProperty("bacon.metrics.jmx", "true").equals("false")) registerMBean();
+		long seconds = Long.getLong("bacon.metrics.dump", 0);
+		if (seconds > 0) {
+			dumpEvery(seconds, TimeUnit.SECONDS, System.err, System.getProperty("bacon.metrics.format", "text").equals("json"));
+		}
+	}
+
+	/**
+	 * The metrics as JMX attributes, read fresh on every call since metrics appear as they're first used:
+	 * each counter by name, each histogram as name.count, name.mean, name.p50, name.p99 and name.max
+	 * (durations in nanoseconds), plus text and json; reset() is an operation
+	 */
+	private static class Bean implements DynamicMBean {
+		private static final String[] STATS = { "count", "mean", "p50", "p99", "max" };
+
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			if (attribute.equals("text")) return text();
+			if (attribute.equals("json")) return json();
+			Counter c = counters.get(attribute);
+			if (c != null) return c.sum();
+			int dot = attribute.lastIndexOf('.');
+			Histogram h = dot < 0 ? null : histograms.get(attribute.substring(0, dot));
+			if (h != null) {
+				switch (attribute.substring(dot + 1)) {
+					case "count": return h.count();
+					case "mean": return h.mean();
+					case "p50": return h.percentile(0.5);
+					case "p99": return h.percentile(0.99);
+					case "max": return h.max();
+				}
+			}
+			throw new AttributeNotFoundException(attribute);
+		}
+
+		public AttributeList getAttributes(String[] attributes) {
+			AttributeList list = new AttributeList();
+			for (String a : attributes) {
+				try {
+					list.add(new Attribute(a, getAttribute(a)));
+				} catch (AttributeNotFoundException e) {
+					// left out, as the interface allows
+				}
+			}
+			return list;
+		}
+
+		public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+			throw new AttributeNotFoundException(attribute.getName() + " is read only");
+		}
+
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList(); // nothing is writable
+		}
+
+		public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+			if (action.equals("reset")) {
+				reset();
+				return null;
+			}
+			throw new ReflectionException(new NoSuchMethodException(action));
+		}
+
+		public MBeanInfo getMBeanInfo() {
+			List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+			attributes.add(new MBeanAttributeInfo("text", "java.lang.String", "every metric as text", true, false, false));
+			attributes.add(new MBeanAttributeInfo("json", "java.lang.String", "every metric as json", true, false, false));
+			for (String name : counters.keySet()) {
+				attributes.add(new MBeanAttributeInfo(name, "long", "counter", true, false, false));
+			}
+			for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+				String unit = e.getValue().nanos() ? " (ns)" : "";
+				for (String stat : STATS) {
+					String type = stat.equals("mean") ? "double" : "long";
+					attributes.add(new MBeanAttributeInfo(e.getKey() + "." + stat, type, stat + unit, true, false, false));
+				}
+			}
+			MBeanOperationInfo reset = new MBeanOperationInfo("reset", "zero every metric", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+			return new MBeanInfo(Metrics.class.getName(), "bacon game metrics", attributes.toArray(new MBeanAttributeInfo[0]),
+					null, new MBeanOperationInfo[] { reset }, null);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+import java.util.*;
+
+/**
+ * compact store of costar edge labels (the movies two actors appeared in together)
+ * every movie title is interned once into a table, and each label is a range of title ids in one shared int pool,
+ * so a label costs a few ints instead of a HashSet with an entry object per movie
+ * label(i) hands out a lightweight read-only Set view of label i; views are made on demand and not kept
+ */
+public class MovieLabelStore {
+    private final String[] titles; //title id -> movie title (may hold null for movies missing from the movie file)
+    private final int[] offsets; //label i is pool[offsets[i] .. offsets[i+1])
+    private final int[] pool; //title ids of every label, back to back
+
+    /**
+     * @param titles interned movie titles
+     * @param offsets label ranges into pool, length number of labels + 1
+     * @param pool title ids of every label
+     */
+    public MovieLabelStore(String[] titles, int[] offsets, int[] pool) {
+        this.titles = titles;
+        this.offsets = offsets;
+        this.pool = pool;
+    }
+
+    /**
+     * interns a list of labels into a store, keeping each set's iteration order
+     * @param labels label sets, in label index order
+     * @return store where label(i) equals labels.get(i)
+     */
+    public static MovieLabelStore intern(List<? extends Set<String>> labels) {
+        int[] offsets = new int[labels.size() + 1];
+        for (int i = 0; i < labels.size(); i++) {
+            offsets[i + 1] = offsets[i] + labels.get(i).size();
+        }
+        int[] pool = new int[offsets[labels.size()]];
+        List<String> titles = new ArrayList<>();
+        Map<String, Integer> titleIds = new HashMap<>();
+        int p = 0;
+        for (Set<String> label : labels) {
+            for (String title : label) {
+                Integer id = titleIds.get(title);
+                if (id == null) {
+                    id = titles.size();
+                    titleIds.put(title, id);
+                    titles.add(title);
+                }
+                pool[p++] = id;
+            }
+        }
+        return new MovieLabelStore(titles.toArray(new String[0]), offsets, pool);
+    }
+
+    /** read-only view of label i */
+    public Set<String> label(int i) {
+        return new Label(offsets[i], offsets[i + 1]);
+    }
+
+    /** how many labels are stored */
+    public int numLabels() {
+        return offsets.length - 1;
+    }
+
+    /** interned titles (shared, don't modify) */
+    public String[] titles() {
+        return titles;
+    }
+
+    /** label ranges into the pool (shared, don't modify) */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /** title ids of every label (shared, don't modify) */
+    public int[] pool() {
+        return pool;
+    }
+
+    /**
+     * read-only set of the titles in pool[from..to)
+     */
+    private class Label extends AbstractSet<String> {
+        private final int from, to;
+
+        Label(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public boolean contains(Object o) {
+            for (int i = from; i < to; i++) {
+                if (Objects.equals(titles[pool[i]], o)) return true;
+            }
+            return false;
+        }
+
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int i = from;
+
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                public String next() {
+                    if (i >= to) throw new NoSuchElementException();
+                    return titles[pool[i++]];
+                }
+            };
+        }
+
+        public int size() {
+            return to - from;
+        }
+    }
+}
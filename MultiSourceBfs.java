@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/**
+ * Bit-parallel breadth first search from many sources at once over a CsrGraph
+ * Each vertex gets a few machine words used as a bitset of "reached by source i", so one pass over
+ * the adjacency arrays advances the frontiers of 64 * words sources together
+ * Gives the exact total distance and reach count of every source, the same numbers a separate
+ * bfs from each source would give
+ * Not thread safe; give each thread its own instance
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class MultiSourceBfs<V,E> {
+	private final CsrGraph<V,E> graph;
+	private final int words;		// words of source bits per vertex
+	private final long[] visited;	// vertex v's bits are visited[v*words .. v*words+words)
+	private final long[] frontier;	// bits newly reached at the current level
+	private final long[] next;		// bits pushed to each vertex for the next level, zero between levels
+	private int[] touched;			// scope of the last run, whose bits need clearing (null for all)
+	private final long[] full;		// bits of every source in the current run, per word
+	private double alpha, beta;		// direction switch thresholds; alpha 0 means always push
+	private static final Metrics.Counter RUNS = Metrics.counter("msbfs.runs");
+	private static final Metrics.Counter SOURCES = Metrics.counter("msbfs.sources");
+	private static final Metrics.Counter LEVELS = Metrics.counter("msbfs.levels");
+	private static final Metrics.Histogram TIME = Metrics.timer("msbfs.time");
+
+	public MultiSourceBfs(CsrGraph<V,E> graph) {
+		this(graph, 1);
+	}
+
+	/**
+	 * @param graph graph to search
+	 * @param words words of bits per vertex, so each run handles up to 64 * words sources
+	 */
+	public MultiSourceBfs(CsrGraph<V,E> graph, int words) {
+		if (words < 1) throw new IllegalArgumentException("need at least one word per vertex");
+		this.graph = graph;
+		this.words = words;
+		int size = graph.numVertices() * words;
+		visited = new long[size];
+		frontier = new long[size];
+		next = new long[size];
+		full = new long[words];
+	}
+
+	/**
+	 * Turns on direction optimization: a level pulls (each vertex still missing some sources ORs in its out neighbors'
+	 * frontier bits, stopping once it has them all) instead of pushing, once the frontier's edges outnumber the edges
+	 * of unfinished vertices / alpha, and pushes again once fewer than count / beta vertices are on the frontier
+	 * Totals and reach counts are the same either way
+	 * @param alpha push to pull threshold; 0 turns direction optimization off
+	 * @param beta pull to push threshold
+	 */
+	public void directionOptimizing(double alpha, double beta) {
+		if (alpha < 0 || beta <= 0) throw new IllegalArgumentException("thresholds must be positive");
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	/** How many sources one run can handle */
+	public int width() {
+		return 64 * words;
+	}
+
+	/**
+	 * bfs from sources[from..to) together, following in edges like BaconGraph.bfs
+	 * @param sources source ids
+	 * @param from first source to run
+	 * @param to one past the last source to run; to - from must be at most width()
+	 * @param totals totals[i - from] set to the sum of distances from sources[i] to every vertex it reaches
+	 * @param reached reached[i - from] set to how many vertices sources[i] reaches, counting itself
+	 */
+	public void run(int[] sources, int from, int to, long[] totals, int[] reached) {
+		run(sources, from, to, totals, reached, null);
+	}
+
+	/**
+	 * bfs from sources[from..to) together, only scanning the vertices in scope
+	 * scope must hold every vertex the sources can reach (e.g. the members of their connected component),
+	 * so each level costs the size of the component rather than the whole graph
+	 * @param scope ids of the vertices to scan, or null for all of them
+	 */
+	public void run(int[] sources, int from, int to, long[] totals, int[] reached, int[] scope) {
+		if (to - from > width()) throw new IllegalArgumentException("at most " + width() + " sources per run");
+		long start = System.nanoTime();
+		int[] offsets = graph.inOffsets(), targets = graph.inTargets();
+		int[] outOffsets = graph.outOffsets(), outTargets = graph.outTargets();
+		int count = scope == null ? graph.numVertices() : scope.length;
+		clear(touched);
+		touched = scope;
+		Arrays.fill(full, 0);
+		long frontierEdges = 0, unfinishedEdges = 0; //what a push and a pull would scan
+		int frontierSize = 0;
+		for (int i = from; i < to; i++) {
+			int bit = i - from;
+			int word = sources[i] * words + (bit >>> 6);
+			visited[word] |= 1L << bit;
+			frontier[word] |= 1L << bit;
+			full[bit >>> 6] |= 1L << bit;
+			totals[bit] = 0;
+			reached[bit] = 1; //each source reaches itself at distance 0
+		}
+		if (alpha > 0) {
+			for (int i = from; i < to; i++) frontierEdges += offsets[sources[i] + 1] - offsets[sources[i]];
+			frontierSize = to - from;
+			unfinishedEdges = scope == null ? outTargets.length : Long.MAX_VALUE; //not known for a scope until a level has run; start by pushing
+		}
+
+		boolean active = true, pull = false;
+		int level = 1;
+		for (; active; level++) {
+			if (alpha > 0) {
+				if (!pull && frontierEdges > unfinishedEdges / alpha) pull = true;
+				else if (pull && frontierSize < count / beta) pull = false;
+			}
+			if (pull) {
+				for (int k = 0; k < count; k++) { //each vertex missing sources gathers its out neighbors' frontier bits
+					int v = scope == null ? k : scope[k];
+					int vbase = v * words;
+					if (finished(vbase)) continue;
+					for (int slot = outOffsets[v]; slot < outOffsets[v + 1]; slot++) {
+						int ubase = outTargets[slot] * words;
+						boolean done = true;
+						for (int w = 0; w < words; w++) {
+							next[vbase + w] |= frontier[ubase + w];
+							done &= ((next[vbase + w] | visited[vbase + w]) & full[w]) == full[w];
+						}
+						if (done) break; //nothing left for this vertex to learn this level
+					}
+				}
+			}
+			else {
+				for (int k = 0; k < count; k++) { //push the frontier bits of u to its in neighbors
+					int u = scope == null ? k : scope[k];
+					int base = u * words;
+					boolean any = false;
+					for (int w = 0; w < words; w++) any |= frontier[base + w] != 0;
+					if (!any) continue;
+					for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+						int vbase = targets[slot] * words;
+						for (int w = 0; w < words; w++) next[vbase + w] |= frontier[base + w];
+					}
+				}
+			}
+			active = false;
+			frontierEdges = 0;
+			unfinishedEdges = 0;
+			frontierSize = 0;
+			for (int k = 0; k < count; k++) { //keep only bits not seen before, and credit their sources
+				int v = scope == null ? k : scope[k];
+				int base = v * words;
+				boolean any = false;
+				for (int w = 0; w < words; w++) {
+					int i = base + w;
+					long bits = next[i] & ~visited[i];
+					next[i] = 0;
+					frontier[i] = bits; //next level's frontier is what was just reached
+					if (bits == 0) continue;
+					any = true;
+					visited[i] |= bits;
+					while (bits != 0) {
+						int s = w * 64 + Long.numberOfTrailingZeros(bits);
+						totals[s] += level;
+						reached[s]++;
+						bits &= bits - 1;
+					}
+				}
+				active |= any;
+				if (alpha > 0) { //sizes for choosing the next level's direction
+					if (any) {
+						frontierEdges += offsets[v + 1] - offsets[v];
+						frontierSize++;
+					}
+					if (!finished(base)) unfinishedEdges += outOffsets[v + 1] - outOffsets[v];
+				}
+			}
+		}
+		RUNS.increment();
+		SOURCES.add(to - from);
+		LEVELS.add(level - 1);
+		TIME.recordSince(start);
+	}
+
+	/** Whether the vertex whose words start at base has been reached by every source of the run */
+	private boolean finished(int base) {
+		for (int w = 0; w < words; w++) {
+			if ((visited[base + w] & full[w]) != full[w]) return false;
+		}
+		return true;
+	}
+
+	/** Zeroes the bits of the vertices in scope (all vertices if null) */
+	private void clear(int[] scope) {
+		if (scope == null) {
+			Arrays.fill(visited, 0);
+			Arrays.fill(frontier, 0);
+			return;
+		}
+		for (int v : scope) {
+			for (int w = 0; w < words; w++) {
+				visited[v * words + w] = 0;
+				frontier[v * words + w] = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,159 @@
+import java.util.*;
+
+/**
+ * Bounded LRU cache of shortest path trees keyed by center, so switching back to a recent center skips its bfs
+ * Bounded by the bytes the cached trees hold (ShortestPathTree.retainedBytes) rather than by count; the least
+ * recently used trees are evicted once the budget is exceeded (the newest tree is always kept)
+ * The newest tree is kept whole, so range queries on a center just switched to are slices of its bfs order; it is
+ * compacted (CompactPathTree, about 5 bytes per vertex) when the next one is built, so a budget holds several times
+ * more centers (CompactPathTree.expand() makes one whole again for a caller that will query it a lot)
+ * Safe to share between threads: lookups lock briefly, and bfs runs outside the lock on an engine from a pool
+ * (not a ThreadLocal, so request-per-thread servers don't make an engine per request)
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class PathTreeCache<V,E> {
+	private final CsrGraph<V,E> graph;
+	private final long maxBytes;
+	private final LinkedHashMap<Integer, ShortestPathTree<V,E>> trees = new LinkedHashMap<>(16, 0.75f, true); // center id -> tree, in access order
+	private final ScratchPool<BfsEngine<V,E>> engines;
+	private int newest = -1;				// center whose tree is kept whole, -1 if none
+	private long bytes;					// bytes held by cached trees
+	private long hits, misses, evictions;
+	private static final Metrics.Counter HITS = Metrics.counter("treecache.hits");			// across every cache
+	private static final Metrics.Counter MISSES = Metrics.counter("treecache.misses");
+	private static final Metrics.Counter EVICTIONS = Metrics.counter("treecache.evictions");
+
+	/**
+	 * @param graph graph the trees are built on
+	 * @param maxBytes budget for the cached trees
+	 */
+	public PathTreeCache(CsrGraph<V,E> graph, long maxBytes) {
+		this(graph, maxBytes, 0, BfsEngine.DEFAULT_BETA);
+	}
+
+	/**
+	 * Cache whose trees are built by direction-optimizing bfs (see BfsEngine.directionOptimizing)
+	 * @param alpha top-down to bottom-up threshold, 0 for plain top-down
+	 * @param beta bottom-up to top-down threshold
+	 */
+	public PathTreeCache(CsrGraph<V,E> graph, long maxBytes, double alpha, double beta) {
+		this.graph = graph;
+		this.maxBytes = maxBytes;
+		this.engines = new ScratchPool<BfsEngine<V,E>>(() -> {
+			BfsEngine<V,E> engine = new BfsEngine<V,E>(graph);
+			engine.directionOptimizing(alpha, beta);
+			return engine;
+		}, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The shortest path tree rooted at center, from the cache or built (and cached) on a miss
+	 * @param center root of the tree
+	 * @return a tree that stays valid however long it is kept
+	 */
+	public ShortestPathTree<V,E> get(V center) {
+		int id = graph.indexOf(center);
+		if (id < 0) throw new IllegalArgumentException(center + " is not in the graph");
+		return get(id);
+	}
+
+	/**
+	 * The shortest path tree rooted at the vertex with id center
+	 */
+	public ShortestPathTree<V,E> get(int center) {
+		synchronized (this) {
+			ShortestPathTree<V,E> tree = trees.get(center);
+			if (tree != null) {
+				hits++;
+				HITS.increment();
+				return tree;
+			}
+			misses++;
+		}
+		MISSES.increment();
+		BfsEngine<V,E> engine = engines.take();
+		ShortestPathTree<V,E> tree;
+		try {
+			tree = engine.bfs(center).copy(); // detach from the engine's scratch before sharing
+		}
+		finally {
+			engines.give(engine);
+		}
+		int previous;
+		ShortestPathTree<V,E> whole;
+		synchronized (this) {
+			ShortestPathTree<V,E> raced = trees.get(center);
+			if (raced != null) return raced; // another thread built it meanwhile; keep theirs
+			previous = newest;
+			whole = peek(previous);
+			trees.put(center, tree);
+			bytes += tree.retainedBytes();
+			newest = center;
+			Iterator<ShortestPathTree<V,E>> eldest = trees.values().iterator();
+			while (bytes > maxBytes && trees.size() > 1) { // evict least recently used, but never the tree just added
+				bytes -= eldest.next().retainedBytes();
+				eldest.remove();
+				evictions++;
+				EVICTIONS.increment();
+			}
+		}
+		if (whole != null) { // compact the tree kept whole so far, outside the lock so lookups don't wait on the copy
+			ShortestPathTree<V,E> compacted = whole.compact(false);
+			synchronized (this) {
+				for (Map.Entry<Integer, ShortestPathTree<V,E>> entry : trees.entrySet()) {
+					if (entry.getKey() != previous) continue; // (setValue, unlike get and put, leaves its place in the lru order)
+					if (entry.getValue() == whole) { // not evicted or cleared meanwhile
+						entry.setValue(compacted);
+						bytes += compacted.retainedBytes() - whole.retainedBytes();
+					}
+					break;
+				}
+			}
+		}
+		return tree;
+	}
+
+	/** The cached tree for center without touching the lru order, null if there is none */
+	private ShortestPathTree<V,E> peek(int center) {
+		for (Map.Entry<Integer, ShortestPathTree<V,E>> entry : trees.entrySet()) {
+			if (entry.getKey() == center) return entry.getValue();
+		}
+		return null;
+	}
+
+	/** Empties the cache (counters are kept) */
+	public synchronized void clear() {
+		trees.clear();
+		newest = -1;
+		bytes = 0;
+	}
+
+	/** How many trees are cached */
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	/** Bytes held by the cached trees */
+	public synchronized long bytes() {
+		return bytes;
+	}
+
+	public synchronized long hits() {
+		return hits;
+	}
+
+	public synchronized long misses() {
+		return misses;
+	}
+
+	public synchronized long evictions() {
+		return evictions;
+	}
+
+	public synchronized String toString() {
+		return "tree cache: " + trees.size() + " trees, " + (bytes >> 10) + "/" + (maxBytes >> 10) + " KB, "
+				+ hits + " hits, " + misses + " misses, " + evictions + " evictions";
+	}
+}
@@ -0,0 +1,144 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a pipe-delimited text file (like bacon/movies.txt) line by line through a reusable byte buffer
+ * Integer fields are parsed straight from the bytes; only fields read as strings create objects
+ * Lines end in \n or \r\n; fields are split on '|' the same way String.split("\\|") splits them
+ */
+public class PipeFileScanner implements Closeable {
+    private final FileChannel channel;
+    private final Charset charset;
+    private byte[] buf = new byte[1 << 16];
+    private ByteBuffer window = ByteBuffer.wrap(buf); //channel reads go through this view of buf
+    private int limit; //bytes of buf holding file data
+    private int next; //start of the next unread line
+    private int lineEnd; //end of the current line (exclusive, without the line terminator)
+    private int pos; //read position within the current line
+    private boolean eof;
+    private long lineNumber;
+
+    /**
+     * opens a file, decoding string fields in the platform default charset (as FileReader does)
+     * @param filePath path of the file to scan
+     * @throws IOException if the file can't be opened
+     */
+    public PipeFileScanner(String filePath) throws IOException {
+        this(filePath, Charset.defaultCharset());
+    }
+
+    public PipeFileScanner(String filePath, Charset charset) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.charset = charset;
+    }
+
+    /**
+     * moves to the next line of the file
+     * @return false once there are no lines left
+     * @throws IOException if error while reading the file
+     */
+    public boolean nextLine() throws IOException {
+        int i = next;
+        while (true) {
+            while (i < limit && buf[i] != '\n') i++; //look for the end of the line in what's buffered
+            if (i < limit) {
+                pos = next;
+                lineEnd = i;
+                next = i + 1;
+                break;
+            }
+            if (eof) { //last line without a trailing newline, or nothing left
+                if (next == limit) return false;
+                pos = next;
+                lineEnd = limit;
+                next = limit;
+                break;
+            }
+            i -= next;
+            fill(); //line runs past the buffer; keep the partial line and read more
+        }
+        if (lineEnd > pos && buf[lineEnd - 1] == '\r') lineEnd--;
+        lineNumber++;
+        return true;
+    }
+
+    /** shifts the unread bytes to the front of the buffer (growing it if one line fills it) and reads more of the file */
+    private void fill() throws IOException {
+        int carried = limit - next;
+        if (next == 0 && carried == buf.length) { //a single line longer than the buffer
+            byte[] bigger = new byte[buf.length * 2];
+            System.arraycopy(buf, 0, bigger, 0, carried);
+            buf = bigger;
+            window = ByteBuffer.wrap(buf);
+        }
+        else if (next > 0) {
+            System.arraycopy(buf, next, buf, 0, carried);
+        }
+        next = 0;
+        limit = carried;
+        window.limit(buf.length).position(limit);
+        int read = channel.read(window);
+        if (read < 0) eof = true;
+        else limit += read;
+    }
+
+    /**
+     * parses the next field of the current line as an int, without making a substring
+     * @return the field's value
+     * @throws NumberFormatException if the field is not an int
+     */
+    public int readInt() {
+        int start = pos;
+        boolean negative = pos < lineEnd && buf[pos] == '-';
+        if (pos < lineEnd && (buf[pos] == '-' || buf[pos] == '+')) pos++; //sign, as Integer.parseInt allows
+        long value = 0;
+        int digits = 0;
+        while (pos < lineEnd && buf[pos] != '|') {
+            int d = buf[pos] - '0';
+            if (d < 0 || d > 9 || ++digits > 10) throw badInt(start);
+            value = value * 10 + d;
+            pos++;
+        }
+        if (digits == 0) throw badInt(start);
+        if (negative) value = -value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) throw badInt(start);
+        skipPipe();
+        return (int) value;
+    }
+
+    private NumberFormatException badInt(int start) {
+        int end = start;
+        while (end < lineEnd && buf[end] != '|') end++;
+        return new NumberFormatException("line " + lineNumber + ": For input string: \"" + new String(buf, start, end - start, charset) + "\"");
+    }
+
+    /**
+     * reads the next field of the current line as a string
+     * @return text up to the next '|' or the end of the line
+     */
+    public String readString() {
+        int start = pos;
+        while (pos < lineEnd && buf[pos] != '|') pos++;
+        String field = new String(buf, start, pos - start, charset);
+        skipPipe();
+        return field;
+    }
+
+    private void skipPipe() {
+        if (pos < lineEnd) pos++; //step over the '|' ending the field
+    }
+
+    /** how many lines have been read so far, i.e. the number of the current line */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable search scratch (BfsEngine, BidirectionalBfs, ...), for callers that can't tie scratch to a thread
+ * Scratch arrays are sized to the graph, so making one per request (or per virtual thread, through a ThreadLocal)
+ * would allocate the whole graph's worth of arrays every time; instead a request takes one, uses it, and gives it back
+ * Safe to share between threads; at most maxIdle instances are kept between uses
+ *
+ * @param <T>	the type of scratch
+ */
+public class ScratchPool<T> {
+	private final Supplier<T> factory;
+	private final int maxIdle;
+	private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<T>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final AtomicInteger created = new AtomicInteger();
+
+	/**
+	 * @param factory makes a new instance when none is idle
+	 * @param maxIdle most instances to keep around between uses
+	 */
+	public ScratchPool(Supplier<T> factory, int maxIdle) {
+		this.factory = factory;
+		this.maxIdle = maxIdle;
+	}
+
+	/** An idle instance, or a new one if there is none */
+	public T take() {
+		T t = idle.poll();
+		if (t != null) {
+			idleCount.decrementAndGet();
+			return t;
+		}
+		created.incrementAndGet();
+		return factory.get();
+	}
+
+	/** Returns an instance taken from this pool (dropped if enough are already idle) */
+	public void give(T t) {
+		if (idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(t);
+		}
+		else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	/** How many instances the pool has made */
+	public int created() {
+		return created.get();
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Summary of the distances from one root, gathered by BfsEngine while it searches:
+ * how many vertices sit at each distance, their total distance, the farthest distance and how many were reached
+ *
+ * @see BfsEngine
+ */
+public class SeparationStats {
+	private final int root;			// id of the root
+	private final int[] histogram;	// histogram[d] = number of vertices at distance d, for d in [0, eccentricity]
+	private final long total;			// sum of the distances of all reached vertices
+	private final int reach;			// vertices reached, including the root
+
+	public SeparationStats(int root, int[] histogram, long total, int reach) {
+		this.root = root;
+		this.histogram = histogram;
+		this.total = total;
+		this.reach = reach;
+	}
+
+	/** Id of the root the distances are measured from */
+	public int root() {
+		return root;
+	}
+
+	/** How many vertices were reached, including the root */
+	public int reach() {
+		return reach;
+	}
+
+	/** Sum of the distances from the root to every reached vertex */
+	public long totalDistance() {
+		return total;
+	}
+
+	/** Distance from the root to the farthest reached vertex */
+	public int eccentricity() {
+		return histogram.length - 1;
+	}
+
+	/** How many vertices are at distance exactly d from the root */
+	public int count(int d) {
+		return d < 0 || d >= histogram.length ? 0 : histogram[d];
+	}
+
+	/** Copy of the per-distance counts, indexed by distance */
+	public int[] histogram() {
+		return histogram.clone();
+	}
+
+	/** Average distance from the root over the reached vertices (the root counts, at distance 0) */
+	public double average() {
+		return (double) total / (double) reach;
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder("reach " + reach + ", total " + total + ", eccentricity " + eccentricity() + ", average " + average() + ", histogram [");
+		for (int d = 0; d < histogram.length; d++) {
+			if (d > 0) s.append(", ");
+			s.append(histogram[d]);
+		}
+		return s.append(']').toString();
+	}
+}
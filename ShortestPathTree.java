@@ -0,0 +1,156 @@
+import java.util.*;
+
+/**
+ * Shortest path tree from a BFS over a CsrGraph, stored as parent and distance arrays indexed by vertex id
+ * instead of as a second graph; the edge from a vertex to its parent is looked up in the base graph
+ * Trees handed out by a BfsEngine share the engine's arrays and are only valid until its next search;
+ * call copy() to keep one around, or compact() to keep one in about a third of the memory
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class ShortestPathTree<V,E> {
+	protected final CsrGraph<V,E> graph;	// graph the tree was built from
+	protected final int source;			// id of the root (center of the universe)
+	protected final int[] parent;			// id -> id of parent, -1 for the root and unreached vertices
+	protected final int[] dist;			// id -> distance from the root, -1 if unreached
+	protected final int[] order;			// reached ids in the order bfs visited them, so sorted by distance
+	protected final int reached;			// how many entries of order are used
+	protected final int[] levels;			// vertices at distance d are order[levels[d] .. levels[d+1])
+	protected final SeparationStats stats;	// distance summary gathered during the search
+
+	public ShortestPathTree(CsrGraph<V,E> graph, int source, int[] parent, int[] dist, int[] order, int reached, int[] levels, SeparationStats stats) {
+		this.graph = graph;
+		this.source = source;
+		this.parent = parent;
+		this.dist = dist;
+		this.order = order;
+		this.reached = reached;
+		this.levels = levels;
+		this.stats = stats;
+	}
+
+	/** The graph the tree was built from */
+	public CsrGraph<V,E> graph() {
+		return graph;
+	}
+
+	/** The root of the tree */
+	public V root() {
+		return graph.vertex(source);
+	}
+
+	/** Id of the root of the tree */
+	public int rootId() {
+		return source;
+	}
+
+	/** How many vertices were reached, including the root */
+	public int numVertices() {
+		return reached;
+	}
+
+	/** Whether or not v was reached from the root */
+	public boolean hasVertex(V v) {
+		int id = graph.indexOf(v);
+		return id >= 0 && dist[id] >= 0;
+	}
+
+	/** Distance from the root to the vertex with id v, -1 if it was not reached */
+	public int distance(int v) {
+		return dist[v];
+	}
+
+	/** Distance from the root to v, -1 if it was not reached (or isn't in the graph) */
+	public int distance(V v) {
+		int id = graph.indexOf(v);
+		return id < 0 ? -1 : dist[id];
+	}
+
+	/** Id of the parent of the vertex with id v, -1 for the root and unreached vertices */
+	public int parent(int v) {
+		return parent[v];
+	}
+
+	/** The parent of v in the tree, null for the root and unreached vertices */
+	public V parentOf(V v) {
+		int id = graph.indexOf(v);
+		return id < 0 || parent[id] < 0 ? null : graph.vertex(parent[id]);
+	}
+
+	/** Id of the i-th vertex reached, in bfs order */
+	public int reachedId(int i) {
+		return order[i];
+	}
+
+	/** The reached vertices in bfs order (nondecreasing distance) */
+	public List<V> vertices() {
+		return new AbstractList<V>() {
+			public V get(int i) {
+				return graph.vertex(order[i]);
+			}
+
+			public int size() {
+				return reached;
+			}
+		};
+	}
+
+	/** Distance of the farthest vertex reached from the root (its eccentricity within its component) */
+	public int depth() {
+		return stats.eccentricity();
+	}
+
+	/** Distance histogram, total, eccentricity and reach of the tree, already computed by the search */
+	public SeparationStats stats() {
+		return stats;
+	}
+
+	/** Position in bfs order of the first vertex at distance d (reached() for any d past the depth) */
+	public int levelStart(int d) {
+		if (d <= 0) return 0;
+		return d > stats.eccentricity() ? reached : levels[d];
+	}
+
+	/** How many vertices are at distance exactly d from the root */
+	public int levelSize(int d) {
+		return d < 0 || d > depth() ? 0 : levelStart(d + 1) - levelStart(d);
+	}
+
+	/**
+	 * The reached vertices with distance in [low, high], nearest first
+	 * The distance buckets are contiguous in bfs order, so this is a slice, not a search
+	 */
+	public List<V> vertices(int low, int high) {
+		high = Math.min(high, depth()); // so high + 1 can't overflow
+		int from = levelStart(Math.max(low, 0)), to = high < 0 ? 0 : levelStart(high + 1);
+		return from >= to ? Collections.<V>emptyList() : vertices().subList(from, to);
+	}
+
+	/** The label on the tree edge from v to its parent, null for the root and unreached vertices */
+	public E getLabel(V v) {
+		V p = parentOf(v);
+		return p == null ? null : graph.getLabel(v, p);
+	}
+
+	/** Rough bytes held by the tree's arrays, for budgeting caches of trees */
+	public long retainedBytes() {
+		return 4L * parent.length + 4L * dist.length + 4L * order.length + 4L * levels.length + 4L * (depth() + 1) + 64;
+	}
+
+	/**
+	 * A copy of the tree in a CompactPathTree (int parents and byte distances, no bfs order), safe to keep after the
+	 * engine that built it runs again
+	 * @param childIndex also keep a child CSR, for trees that are walked down often
+	 */
+	public CompactPathTree<V,E> compact(boolean childIndex) {
+		return new CompactPathTree<V,E>(this, childIndex);
+	}
+
+	/**
+	 * A copy of the tree with its own arrays, safe to keep after the engine that built it runs again
+	 */
+	public ShortestPathTree<V,E> copy() {
+		return new ShortestPathTree<V,E>(graph, source, parent.clone(), dist.clone(), Arrays.copyOf(order, reached), reached, Arrays.copyOf(levels, depth() + 2), stats);
+	}
+}